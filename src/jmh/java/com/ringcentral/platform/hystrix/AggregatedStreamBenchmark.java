@@ -0,0 +1,78 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+
+/**
+ * Throughput of {@link AggregatedHystrixCommandCompletionStream} depending on number of commands and subscribers.
+ * One operation is one completion written into a command stream and delivered to all subscribers,
+ * run with {@code -prof gc} to see allocation per delivered completion ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AggregatedStreamBenchmark {
+
+    private static final HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("BenchmarkGroup");
+    private static final HystrixThreadPoolKey THREAD_POOL_KEY = HystrixThreadPoolKey.Factory.asKey("BenchmarkGroup");
+
+    @Param({"10", "100", "1000", "5000"})
+    public int commandCount;
+
+    @Param({"1", "4"})
+    public int subscriberCount;
+
+    private HystrixCommandCompletionStream[] streams;
+    private HystrixCommandCompletion[] completions;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Hystrix.reset();
+        HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+        AggregatedHystrixCommandCompletionStream aggregatedStream = new AggregatedHystrixCommandCompletionStream(notifier, m -> true);
+        streams = new HystrixCommandCompletionStream[commandCount];
+        completions = new HystrixCommandCompletion[commandCount];
+        for (int i = 0; i < commandCount; i++) {
+            HystrixCommandKey key = HystrixCommandKey.Factory.asKey("BenchmarkCommand" + i);
+            aggregatedStream.initialize(HystrixCommandMetrics.getInstance(key, GROUP_KEY, THREAD_POOL_KEY,
+                    HystrixPropertiesFactory.getCommandProperties(key, null)));
+            streams[i] = HystrixCommandCompletionStream.getInstance(key);
+            completions[i] = HystrixCommandCompletion.from(ExecutionResult.from(SUCCESS).setExecutionLatency(5), key, THREAD_POOL_KEY);
+        }
+        for (int i = 0; i < subscriberCount; i++) {
+            subscriptions.add(aggregatedStream.observe().subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscriptions.forEach(Subscription::unsubscribe);
+        subscriptions.clear();
+        Hystrix.reset();
+    }
+
+    @Benchmark
+    public void deliver() {
+        int i = next;
+        streams[i].write(completions[i]);
+        next = i + 1 == commandCount ? 0 : i + 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisher;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherCommand;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of creation and initialization of the command publisher of {@link ComposedHystrixMetricsPublisher}
+ * depending on number of delegates. Every delegate registers the command in its own map, like a metrics registry does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ComposedPublisherInitializationBenchmark {
+
+    private static final HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("BenchmarkGroup");
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"1", "3", "10"})
+    public int delegateCount;
+
+    private ComposedHystrixMetricsPublisher publisher;
+    private final HystrixCommandKey[] keys = new HystrixCommandKey[KEY_COUNT];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        HystrixMetricsPublisher[] delegates = new HystrixMetricsPublisher[delegateCount];
+        for (int i = 0; i < delegateCount; i++) {
+            delegates[i] = new RegistryPublisher();
+        }
+        publisher = new ComposedHystrixMetricsPublisher(delegates);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = HystrixCommandKey.Factory.asKey("BenchmarkCommand" + i);
+        }
+    }
+
+    @Benchmark
+    public HystrixMetricsPublisherCommand initialize() {
+        HystrixCommandKey key = keys[next];
+        next = (next + 1) & (KEY_COUNT - 1);
+        HystrixMetricsPublisherCommand command = publisher.getMetricsPublisherForCommand(key, GROUP_KEY, null, null, null);
+        command.initialize();
+        return command;
+    }
+
+    private static class RegistryPublisher extends HystrixMetricsPublisher {
+
+        private final ConcurrentMap<String, Object> registry = new ConcurrentHashMap<>();
+
+        @Override
+        public HystrixMetricsPublisherCommand getMetricsPublisherForCommand(HystrixCommandKey commandKey, HystrixCommandGroupKey commandGroupKey,
+                                                                            HystrixCommandMetrics metrics, HystrixCircuitBreaker circuitBreaker,
+                                                                            HystrixCommandProperties properties) {
+            return () -> registry.put(commandKey.name(), commandGroupKey);
+        }
+    }
+}
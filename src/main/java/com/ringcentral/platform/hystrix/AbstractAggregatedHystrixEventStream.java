@@ -0,0 +1,216 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.metric.HystrixEvent;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Base class for Rx-Java event streams that aggregate events of all commands, thread pools or collapsers
+ * and dynamically add new streams when metrics of a new key are initialized.
+ * Keys initialized before the stream was created are taken from the existing metrics instances,
+ * and every new subscriber is attached to all keys known so far.
+ * The filter can be replaced at runtime and keys can be detached, detached streams are unsubscribed
+ * so their events don't cost anything for the aggregated stream.
+ *
+ * @param <M> type of metrics the stream is notified about
+ * @param <E> type of aggregated events
+ */
+public abstract class AbstractAggregatedHystrixEventStream<M, E extends HystrixEvent> implements HystrixEventStream<E> {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractAggregatedHystrixEventStream.class);
+    private volatile Predicate<M> filter;
+    /** all keys known so far, including the ones that are not attached **/
+    private final ConcurrentMap<String, Source<M, E>> sources = new ConcurrentHashMap<>();
+    /** streams that are attached after subscription **/
+    private final Subject<Observable<E>, Observable<E>> additions;
+    /** keeps attaching of streams out of the window between reading attached streams and subscribing to additions **/
+    private final Object attachLock = new Object();
+    private final Observable<Observable<E>> streams;
+    private final Observable<E> aggregatedStream;
+
+    protected AbstractAggregatedHystrixEventStream(Predicate<M> filter) {
+        this.filter = filter;
+        additions = PublishSubject.<Observable<E>>create().toSerialized();
+        // attached streams are read and additions are subscribed atomically, so every stream comes exactly once
+        streams = Observable.create(subscriber -> {
+            synchronized (attachLock) {
+                for (Observable<E> stream : attachedStreams()) {
+                    subscriber.onNext(stream);
+                }
+                additions.unsafeSubscribe(subscriber);
+            }
+        });
+        aggregatedStream = Observable.merge(streams).share();
+    }
+
+    @Override
+    public Observable<E> observe() {
+        return aggregatedStream;
+    }
+
+    /**
+     * Batched variant of {@link #observe()}: every subscriber receives events grouped into a reusable batch,
+     * flushed when {@code maxBatchSize} events are collected or {@code maxDelay} is passed.
+     */
+    public Observable<HystrixEventBatch<E>> observeBatched(int maxBatchSize, long maxDelay, TimeUnit unit) {
+        return observeBatched(maxBatchSize, maxDelay, unit, Schedulers.computation());
+    }
+
+    public Observable<HystrixEventBatch<E>> observeBatched(int maxBatchSize, long maxDelay, TimeUnit unit, Scheduler scheduler) {
+        return aggregatedStream.lift(new BatchingOperator<>(maxBatchSize, maxDelay, unit, scheduler));
+    }
+
+    /**
+     * @return streams of all attached keys, followed by streams of keys attached after subscription.
+     * Every stream completes when its key is detached. Unlike {@link #observe()} the streams are not merged,
+     * so events of different keys are emitted concurrently on the threads that produce them.
+     */
+    Observable<Observable<E>> observeStreams() {
+        return streams;
+    }
+
+    /**
+     * Replaces the filter and re-evaluates it for all known keys:
+     * keys that don't pass the new filter are detached, keys that pass it are attached.
+     * Can be used as a callback of a dynamic property.
+     */
+    public void setFilter(Predicate<M> filter) {
+        this.filter = filter;
+        sources.forEach(this::refresh);
+    }
+
+    /**
+     * @return names of keys whose events are currently aggregated
+     */
+    public Set<String> getAttachedNames() {
+        Set<String> names = new TreeSet<>();
+        sources.forEach((name, source) -> {
+            if (source.attached != null) {
+                names.add(name);
+            }
+        });
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Adds stream of the given metrics to the aggregated stream if the metrics pass the filter.
+     * Streams are kept by name, so the same metrics can be safely passed more than once.
+     * Nothing is subscribed to the stream until the aggregated stream has subscribers.
+     */
+    protected void aggregate(M metrics, String name, Supplier<Observable<E>> stream) {
+        if (sources.containsKey(name)) {
+            return;
+        }
+        Source<M, E> source = new Source<>(metrics, stream);
+        if (sources.putIfAbsent(name, source) == null) {
+            refresh(name, source);
+        }
+    }
+
+    /**
+     * Attaches the known key regardless of the filter
+     *
+     * @return false if the key is unknown or already attached
+     */
+    protected boolean attach(String name) {
+        Source<M, E> source = sources.get(name);
+        return source != null && attach(name, source);
+    }
+
+    /**
+     * Detaches the key until it is attached again explicitly or by a new filter
+     *
+     * @return false if the key is unknown or not attached
+     */
+    protected boolean detach(String name) {
+        Source<M, E> source = sources.get(name);
+        if (source != null && source.detach()) {
+            log.debug("Detach {} stream for {}", getClass().getSimpleName(), name);
+            return true;
+        }
+        return false;
+    }
+
+    private void refresh(String name, Source<M, E> source) {
+        if (filter.test(source.metrics)) {
+            attach(name, source);
+        } else {
+            detach(name);
+        }
+    }
+
+    private boolean attach(String name, Source<M, E> source) {
+        synchronized (attachLock) {
+            Observable<E> observable = source.attach();
+            if (observable == null) {
+                return false;
+            }
+            log.debug("Aggregate {} stream for {}", getClass().getSimpleName(), name);
+            additions.onNext(observable);
+            return true;
+        }
+    }
+
+    private List<Observable<E>> attachedStreams() {
+        List<Observable<E>> result = new ArrayList<>(sources.size());
+        for (Source<M, E> source : sources.values()) {
+            Observable<E> attached = source.attached;
+            if (attached != null) {
+                result.add(attached);
+            }
+        }
+        return result;
+    }
+
+    private static final class Source<M, E> {
+
+        private final M metrics;
+        private final Supplier<Observable<E>> stream;
+        private volatile Observable<E> attached;
+        private Subject<Boolean, Boolean> detached;
+
+        Source(M metrics, Supplier<Observable<E>> stream) {
+            this.metrics = metrics;
+            this.stream = stream;
+        }
+
+        /**
+         * @return stream that completes when the source is detached or null if the source is already attached
+         */
+        synchronized Observable<E> attach() {
+            if (attached != null) {
+                return null;
+            }
+            detached = BehaviorSubject.create();
+            attached = stream.get().takeUntil(detached);
+            return attached;
+        }
+
+        synchronized boolean detach() {
+            if (attached == null) {
+                return false;
+            }
+            attached = null;
+            detached.onNext(Boolean.TRUE);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Passes all completions with failures, timeouts and rejections, and every n-th successful completion,
+ * where n is adapted every second to keep the number of passed successes near the target rate.
+ * A passed success is weighted by the number of successes it stands for.
+ */
+final class AdaptiveSamplingOperator implements Observable.Operator<WeightedHystrixCommandCompletion, HystrixCommandCompletion> {
+
+    private static final long WINDOW_IN_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final BitSet NOT_SAMPLED = new BitSet();
+
+    static {
+        for (HystrixEventType eventType : new HystrixEventType[]{
+                HystrixEventType.FAILURE, HystrixEventType.TIMEOUT, HystrixEventType.BAD_REQUEST,
+                HystrixEventType.SHORT_CIRCUITED, HystrixEventType.THREAD_POOL_REJECTED, HystrixEventType.SEMAPHORE_REJECTED,
+                HystrixEventType.FALLBACK_FAILURE, HystrixEventType.FALLBACK_REJECTION, HystrixEventType.FALLBACK_MISSING,
+                HystrixEventType.EXCEPTION_THROWN}) {
+            NOT_SAMPLED.set(eventType.ordinal());
+        }
+    }
+
+    private final long targetPerSecond;
+    private final Scheduler scheduler;
+    private final LongAdder sampledOut;
+
+    AdaptiveSamplingOperator(long targetPerSecond, Scheduler scheduler, LongAdder sampledOut) {
+        if (targetPerSecond < 1) {
+            throw new IllegalArgumentException("targetPerSecond must be positive");
+        }
+        this.targetPerSecond = targetPerSecond;
+        this.scheduler = scheduler;
+        this.sampledOut = sampledOut;
+    }
+
+    @Override
+    public Subscriber<? super HystrixCommandCompletion> call(Subscriber<? super WeightedHystrixCommandCompletion> child) {
+        return new SamplingSubscriber(child);
+    }
+
+    private final class SamplingSubscriber extends Subscriber<HystrixCommandCompletion> {
+
+        private final Subscriber<? super WeightedHystrixCommandCompletion> child;
+        private long windowStart = scheduler.now();
+        private long windowSuccesses;
+        private long windowPassed;
+        private long interval = 1;
+        private long skipped;
+
+        SamplingSubscriber(Subscriber<? super WeightedHystrixCommandCompletion> child) {
+            super(child);
+            this.child = child;
+        }
+
+        @Override
+        public void onNext(HystrixCommandCompletion completion) {
+            if (completion.getEventCounts().containsAnyOf(NOT_SAMPLED)) {
+                child.onNext(new WeightedHystrixCommandCompletion(completion, 1));
+                return;
+            }
+            roll();
+            windowSuccesses++;
+            if (++skipped < interval) {
+                sampledOut.increment();
+                request(1);
+                return;
+            }
+            long weight = skipped;
+            skipped = 0;
+            if (++windowPassed >= targetPerSecond) {
+                // the rate went up within the window, don't wait for the next one to adapt
+                interval *= 2;
+                windowPassed = 0;
+            }
+            child.onNext(new WeightedHystrixCommandCompletion(completion, weight));
+        }
+
+        @Override
+        public void onCompleted() {
+            child.onCompleted();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            child.onError(e);
+        }
+
+        private void roll() {
+            long now = scheduler.now();
+            long elapsed = now - windowStart;
+            if (elapsed < WINDOW_IN_MILLIS) {
+                return;
+            }
+            long rate = elapsed < 2 * WINDOW_IN_MILLIS ? windowSuccesses * WINDOW_IN_MILLIS / elapsed : 0;
+            interval = Math.max(1, (rate + targetPerSecond - 1) / targetPerSecond);
+            windowStart = now;
+            windowSuccesses = 0;
+            windowPassed = 0;
+        }
+    }
+}
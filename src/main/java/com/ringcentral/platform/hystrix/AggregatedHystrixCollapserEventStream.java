@@ -0,0 +1,41 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserMetrics;
+import com.netflix.hystrix.metric.HystrixCollapserEvent;
+import com.netflix.hystrix.metric.HystrixCollapserEventStream;
+
+import java.util.function.Predicate;
+
+/**
+ * Rx-Java event stream that aggregates events of all collapsers and dynamically adds new collapsers during it's work
+ */
+public class AggregatedHystrixCollapserEventStream extends AbstractAggregatedHystrixEventStream<HystrixCollapserMetrics, HystrixCollapserEvent>
+        implements HystrixCollapserMetricsInitializationListener {
+
+    public AggregatedHystrixCollapserEventStream(HystrixMetricsInitializationNotifier notifier, Predicate<HystrixCollapserMetrics> filter) {
+        super(filter);
+        notifier.addCollapserListener(this);
+        HystrixCollapserMetrics.getInstances().forEach(this::initialize);
+    }
+
+    @Override
+    public void initialize(HystrixCollapserMetrics metrics) {
+        final HystrixCollapserKey key = metrics.getCollapserKey();
+        aggregate(metrics, key.name(), () -> HystrixCollapserEventStream.getInstance(key).observe());
+    }
+
+    /**
+     * Attaches events of the collapser regardless of the filter
+     */
+    public boolean attach(HystrixCollapserKey key) {
+        return attach(key.name());
+    }
+
+    /**
+     * Detaches events of the collapser until it is attached again explicitly or by a new filter
+     */
+    public boolean detach(HystrixCollapserKey key) {
+        return detach(key.name());
+    }
+}
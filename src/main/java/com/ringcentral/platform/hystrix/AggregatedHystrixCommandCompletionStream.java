@@ -4,43 +4,38 @@ import com.netflix.hystrix.HystrixCommandKey;
 import com.netflix.hystrix.HystrixCommandMetrics;
 import com.netflix.hystrix.metric.HystrixCommandCompletion;
 import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
-import com.netflix.hystrix.metric.HystrixEventStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import rx.Observable;
-import rx.subjects.PublishSubject;
-import rx.subjects.Subject;
 
 import java.util.function.Predicate;
 
 /**
  * Rx-Java event stream that aggregates all events for all commands and dynamically adds new type of events during it's work
  */
-public class AggregatedHystrixCommandCompletionStream implements HystrixMetricsInitializationListener, HystrixEventStream<HystrixCommandCompletion> {
-
-    private static final Logger log = LoggerFactory.getLogger(AggregatedHystrixCommandCompletionStream.class);
-    private final Predicate<HystrixCommandMetrics> filter;
-    private final Subject<Observable<HystrixCommandCompletion>, Observable<HystrixCommandCompletion>> streams;
-    private final Observable<HystrixCommandCompletion> aggregatedStream;
+public class AggregatedHystrixCommandCompletionStream extends AbstractAggregatedHystrixEventStream<HystrixCommandMetrics, HystrixCommandCompletion>
+        implements HystrixMetricsInitializationListener {
 
     public AggregatedHystrixCommandCompletionStream(HystrixMetricsInitializationNotifier notifier, Predicate<HystrixCommandMetrics> filter) {
-        this.filter = filter;
-        streams = PublishSubject.<Observable<HystrixCommandCompletion>>create().toSerialized();
-        aggregatedStream = Observable.merge(streams).share();
+        super(filter);
         notifier.addListener(this);
+        HystrixCommandMetrics.getInstances().forEach(this::initialize);
     }
 
     @Override
-    public Observable<HystrixCommandCompletion> observe() {
-        return aggregatedStream;
+    public void initialize(HystrixCommandMetrics metrics) {
+        final HystrixCommandKey key = metrics.getCommandKey();
+        aggregate(metrics, key.name(), () -> HystrixCommandCompletionStream.getInstance(key).observe());
     }
 
-    @Override
-    public void initialize(HystrixCommandMetrics metrics) {
-        if (filter.test(metrics)) {
-            final HystrixCommandKey key = metrics.getCommandKey();
-            log.debug("Aggregate stream for command {}", key.name());
-            streams.onNext(HystrixCommandCompletionStream.getInstance(key).observe());
-        }
+    /**
+     * Attaches events of the command regardless of the filter
+     */
+    public boolean attach(HystrixCommandKey key) {
+        return attach(key.name());
+    }
+
+    /**
+     * Detaches events of the command until it is attached again explicitly or by a new filter
+     */
+    public boolean detach(HystrixCommandKey key) {
+        return detach(key.name());
     }
-}
\ No newline at end of file
+}
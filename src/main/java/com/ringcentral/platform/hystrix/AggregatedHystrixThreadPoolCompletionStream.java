@@ -0,0 +1,42 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixThreadPoolCompletionStream;
+
+import java.util.function.Predicate;
+
+/**
+ * Rx-Java event stream that aggregates completions of commands executed in all thread pools
+ * and dynamically adds new thread pools during it's work
+ */
+public class AggregatedHystrixThreadPoolCompletionStream extends AbstractAggregatedHystrixEventStream<HystrixThreadPoolMetrics, HystrixCommandCompletion>
+        implements HystrixThreadPoolMetricsInitializationListener {
+
+    public AggregatedHystrixThreadPoolCompletionStream(HystrixMetricsInitializationNotifier notifier, Predicate<HystrixThreadPoolMetrics> filter) {
+        super(filter);
+        notifier.addThreadPoolListener(this);
+        HystrixThreadPoolMetrics.getInstances().forEach(this::initialize);
+    }
+
+    @Override
+    public void initialize(HystrixThreadPoolMetrics metrics) {
+        final HystrixThreadPoolKey key = metrics.getThreadPoolKey();
+        aggregate(metrics, key.name(), () -> HystrixThreadPoolCompletionStream.getInstance(key).observe());
+    }
+
+    /**
+     * Attaches events of the thread pool regardless of the filter
+     */
+    public boolean attach(HystrixThreadPoolKey key) {
+        return attach(key.name());
+    }
+
+    /**
+     * Detaches events of the thread pool until it is attached again explicitly or by a new filter
+     */
+    public boolean detach(HystrixThreadPoolKey key) {
+        return detach(key.name());
+    }
+}
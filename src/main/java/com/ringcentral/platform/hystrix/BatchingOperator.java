@@ -0,0 +1,97 @@
+package com.ringcentral.platform.hystrix;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups events into a reusable {@link HystrixEventBatch} that is flushed when it is full or when the max delay is passed
+ */
+final class BatchingOperator<T> implements Observable.Operator<HystrixEventBatch<T>, T> {
+
+    private final int maxBatchSize;
+    private final long maxDelay;
+    private final TimeUnit unit;
+    private final Scheduler scheduler;
+
+    BatchingOperator(int maxBatchSize, long maxDelay, TimeUnit unit, Scheduler scheduler) {
+        if (maxBatchSize < 1 || maxDelay < 1) {
+            throw new IllegalArgumentException("maxBatchSize and maxDelay must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.unit = unit;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Subscriber<? super T> call(Subscriber<? super HystrixEventBatch<T>> child) {
+        BatchingSubscriber<T> parent = new BatchingSubscriber<>(child, maxBatchSize);
+        Scheduler.Worker worker = scheduler.createWorker();
+        parent.add(worker);
+        child.add(parent);
+        worker.schedulePeriodically(parent::flush, maxDelay, maxDelay, unit);
+        return parent;
+    }
+
+    private static final class BatchingSubscriber<T> extends Subscriber<T> {
+
+        private final Subscriber<? super HystrixEventBatch<T>> child;
+        private final HystrixEventBatch<T> batch;
+        private boolean done;
+
+        BatchingSubscriber(Subscriber<? super HystrixEventBatch<T>> child, int maxBatchSize) {
+            this.child = child;
+            this.batch = new HystrixEventBatch<>(maxBatchSize);
+        }
+
+        @Override
+        public synchronized void onNext(T event) {
+            if (!done && batch.add(event)) {
+                emit();
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                flush();
+                done = true;
+            }
+            child.onCompleted();
+            unsubscribe();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                batch.clear();
+                done = true;
+            }
+            child.onError(e);
+            unsubscribe();
+        }
+
+        synchronized void flush() {
+            if (!done && batch.size() > 0) {
+                emit();
+            }
+        }
+
+        private void emit() {
+            try {
+                child.onNext(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
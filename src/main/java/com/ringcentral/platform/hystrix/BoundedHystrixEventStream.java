@@ -0,0 +1,42 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.metric.HystrixEvent;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps any event stream, e.g. {@link AggregatedHystrixCommandCompletionStream}, so that a slow subscriber never
+ * blocks the threads that produce events and never makes them buffer without limit.
+ * Every subscriber gets its own bounded buffer and events are delivered to it on the given scheduler,
+ * events that don't fit are dropped according to {@link OverflowStrategy} and counted.
+ */
+public class BoundedHystrixEventStream<E extends HystrixEvent> implements HystrixEventStream<E> {
+
+    private final LongAdder dropped = new LongAdder();
+    private final Observable<E> stream;
+
+    public BoundedHystrixEventStream(HystrixEventStream<E> source, OverflowStrategy strategy, int capacity) {
+        this(source, strategy, capacity, Schedulers.computation());
+    }
+
+    public BoundedHystrixEventStream(HystrixEventStream<E> source, OverflowStrategy strategy, int capacity, Scheduler scheduler) {
+        OverflowOperator<E> operator = new OverflowOperator<>(strategy, capacity, scheduler, dropped);
+        stream = source.observe().lift(operator);
+    }
+
+    @Override
+    public Observable<E> observe() {
+        return stream;
+    }
+
+    /**
+     * @return number of events dropped for all subscribers since the stream was created
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,496 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixInvokable;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Execution hook that allows to register several hooks and calls all of them in the order of registration.
+ * Hooks are called on every command execution, so they are kept in an array and called in a plain loop.
+ * Every hook is isolated from the others: if one of them fails, the rest are still called.
+ * Values and exceptions returned by a hook are passed to the next one, the result of the last hook is returned to Hystrix.
+ * Deprecated methods are passed to the hooks as well: Hystrix 1.5 still calls them through its deprecation wrapper,
+ * so hooks written against the old API keep receiving callbacks and transforming values.
+ */
+public class ComposedHystrixCommandExecutionHook extends HystrixCommandExecutionHook {
+
+    private static final Logger log = LoggerFactory.getLogger(ComposedHystrixCommandExecutionHook.class);
+
+    private final HystrixCommandExecutionHook[] hooks;
+    private final DelegateRecorder recorder;
+
+    public ComposedHystrixCommandExecutionHook(HystrixCommandExecutionHook... hooks) {
+        this(false, hooks);
+    }
+
+    /**
+     * @param timed if true, number of calls and time spent in every hook are recorded
+     */
+    public ComposedHystrixCommandExecutionHook(boolean timed, HystrixCommandExecutionHook... hooks) {
+        this.hooks = hooks.clone();
+        this.recorder = new DelegateRecorder(log, this.hooks, timed);
+    }
+
+    /**
+     * @return statistics of hooks in the order of registration, calls and time are counted only if timing is enabled
+     */
+    public List<DelegateStatistics> getDelegateStatistics() {
+        return recorder.getStatistics();
+    }
+
+    @Override
+    public <T> void onStart(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onStart", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> T onEmit(HystrixInvokable<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onEmit(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onEmit", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> Exception onError(HystrixInvokable<T> commandInstance, HystrixRuntimeException.FailureType failureType, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onError(commandInstance, failureType, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> void onSuccess(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onSuccess(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onSuccess", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> void onThreadStart(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onThreadStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onThreadStart", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> void onThreadComplete(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onThreadComplete(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onThreadComplete", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> void onExecutionStart(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onExecutionStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onExecutionStart", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> T onExecutionEmit(HystrixInvokable<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onExecutionEmit(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onExecutionEmit", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> Exception onExecutionError(HystrixInvokable<T> commandInstance, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onExecutionError(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onExecutionError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> void onExecutionSuccess(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onExecutionSuccess(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onExecutionSuccess", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> void onFallbackStart(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onFallbackStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onFallbackStart", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> T onFallbackEmit(HystrixInvokable<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onFallbackEmit(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onFallbackEmit", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> Exception onFallbackError(HystrixInvokable<T> commandInstance, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onFallbackError(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onFallbackError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> void onFallbackSuccess(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onFallbackSuccess(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onFallbackSuccess", e);
+            }
+        }
+    }
+
+    @Override
+    public <T> void onCacheHit(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onCacheHit(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onCacheHit", e);
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <T> void onRunStart(HystrixCommand<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onRunStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onRunStart", e);
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <T> void onRunStart(HystrixInvokable<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onRunStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onRunStart", e);
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <T> T onRunSuccess(HystrixCommand<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onRunSuccess(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onRunSuccess", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> T onRunSuccess(HystrixInvokable<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onRunSuccess(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onRunSuccess", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> Exception onRunError(HystrixCommand<T> commandInstance, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onRunError(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onRunError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> Exception onRunError(HystrixInvokable<T> commandInstance, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onRunError(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onRunError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> void onFallbackStart(HystrixCommand<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onFallbackStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onFallbackStart", e);
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <T> T onFallbackSuccess(HystrixCommand<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onFallbackSuccess(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onFallbackSuccess", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> T onFallbackSuccess(HystrixInvokable<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onFallbackSuccess(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onFallbackSuccess", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> Exception onFallbackError(HystrixCommand<T> commandInstance, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onFallbackError(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onFallbackError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> void onStart(HystrixCommand<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onStart", e);
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <T> T onComplete(HystrixCommand<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onComplete(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onComplete", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> T onComplete(HystrixInvokable<T> commandInstance, T value) {
+        T result = value;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onComplete(commandInstance, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onComplete", e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> Exception onError(HystrixCommand<T> commandInstance, HystrixRuntimeException.FailureType failureType, Exception e) {
+        Exception result = e;
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                result = hooks[i].onError(commandInstance, failureType, result);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException hookException) {
+                recorder.failed(i, start, "onError", hookException);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Deprecated
+    public <T> void onThreadStart(HystrixCommand<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onThreadStart(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onThreadStart", e);
+            }
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <T> void onThreadComplete(HystrixCommand<T> commandInstance) {
+        for (int i = 0; i < hooks.length; i++) {
+            long start = recorder.start();
+            try {
+                hooks[i].onThreadComplete(commandInstance);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "onThreadComplete", e);
+            }
+        }
+    }
+}
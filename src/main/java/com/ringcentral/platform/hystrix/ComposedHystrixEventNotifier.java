@@ -0,0 +1,69 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Event notifier that allows to register several notifiers and passes every event to all of them.
+ * Notifiers are called on every command execution, so they are kept in an array and called in a plain loop.
+ * Every notifier is isolated from the others: if one of them fails, the rest are still called.
+ */
+public class ComposedHystrixEventNotifier extends HystrixEventNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(ComposedHystrixEventNotifier.class);
+
+    private final HystrixEventNotifier[] notifiers;
+    private final DelegateRecorder recorder;
+
+    public ComposedHystrixEventNotifier(HystrixEventNotifier... notifiers) {
+        this(false, notifiers);
+    }
+
+    /**
+     * @param timed if true, number of calls and time spent in every notifier are recorded
+     */
+    public ComposedHystrixEventNotifier(boolean timed, HystrixEventNotifier... notifiers) {
+        this.notifiers = notifiers.clone();
+        this.recorder = new DelegateRecorder(log, this.notifiers, timed);
+    }
+
+    /**
+     * @return statistics of notifiers in the order of registration, calls and time are counted only if timing is enabled
+     */
+    public List<DelegateStatistics> getDelegateStatistics() {
+        return recorder.getStatistics();
+    }
+
+    @Override
+    public void markEvent(HystrixEventType eventType, HystrixCommandKey key) {
+        for (int i = 0; i < notifiers.length; i++) {
+            long start = recorder.start();
+            try {
+                notifiers[i].markEvent(eventType, key);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "markEvent", e);
+            }
+        }
+    }
+
+    @Override
+    public void markCommandExecution(HystrixCommandKey key, HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy,
+                                     int duration, List<HystrixEventType> eventsDuringExecution) {
+        for (int i = 0; i < notifiers.length; i++) {
+            long start = recorder.start();
+            try {
+                notifiers[i].markCommandExecution(key, isolationStrategy, duration, eventsDuringExecution);
+                recorder.succeeded(i, start);
+            } catch (RuntimeException e) {
+                recorder.failed(i, start, "markCommandExecution", e);
+            }
+        }
+    }
+}
@@ -9,46 +9,145 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * Publisher for metrics that allows to register several publishers and will publish every event into all of them
  * This class is useful to avoid limitations that only 1 plugin can be registered in Hystrix.
+ * Every plugin is isolated from the others: if one of them fails, the rest are still initialized.
+ * Without plugins a shared no-op publisher is returned, so nothing is allocated per command.
  */
 public class ComposedHystrixMetricsPublisher extends HystrixMetricsPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(ComposedHystrixMetricsPublisher.class);
 
-    /** list of registered plugins **/
-    private final List<HystrixMetricsPublisher> publishers;
+    /** registered plugins **/
+    private final HystrixMetricsPublisher[] publishers;
+
+    /** statistics of registered plugins, index matches the plugin's index **/
+    private final DelegateStatistics[] statistics;
+
+    /** executor for initialization of plugins, null if plugins are initialized on the caller thread **/
+    private final Executor executor;
 
     public ComposedHystrixMetricsPublisher(HystrixMetricsPublisher... publishers) {
+        this(null, publishers);
+    }
+
+    /**
+     * Creates publisher that initializes every plugin as a separate task of the executor,
+     * so the thread that runs a command for the first time doesn't wait for the plugins.
+     */
+    public ComposedHystrixMetricsPublisher(Executor executor, HystrixMetricsPublisher... publishers) {
         log.trace("Creating ComposedHystrixMetricsPublisher");
-        this.publishers = Arrays.asList(publishers);
+        this.publishers = publishers.clone();
+        this.statistics = new DelegateStatistics[publishers.length];
+        for (int i = 0; i < publishers.length; i++) {
+            statistics[i] = new DelegateStatistics(publishers[i].getClass().getName());
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * @return statistics of plugins' getMetricsPublisherFor* and initialize calls in the order of registration
+     */
+    public List<DelegateStatistics> getDelegateStatistics() {
+        return Collections.unmodifiableList(Arrays.asList(statistics));
     }
 
     @Override
     public HystrixMetricsPublisherCommand getMetricsPublisherForCommand(HystrixCommandKey commandKey, HystrixCommandGroupKey commandGroupKey, HystrixCommandMetrics metrics, HystrixCircuitBreaker circuitBreaker, HystrixCommandProperties properties) {
-        Stream<HystrixMetricsPublisherCommand> stream = publishers.stream().map(p ->
-                p.getMetricsPublisherForCommand(commandKey, commandGroupKey, metrics, circuitBreaker, properties));
+        if (publishers.length == 0) {
+            return NoOpMetricsPublishers.COMMAND;
+        }
         log.trace("getMetricsPublisherForCommand {}", commandKey.name());
-        return () -> stream.forEach(HystrixMetricsPublisherCommand::initialize);
+        HystrixMetricsPublisherCommand[] delegates = resolve(HystrixMetricsPublisherCommand[]::new, commandKey.name(), p ->
+                p.getMetricsPublisherForCommand(commandKey, commandGroupKey, metrics, circuitBreaker, properties));
+        return () -> initialize(delegates, HystrixMetricsPublisherCommand::initialize, commandKey.name());
     }
 
     @Override
     public HystrixMetricsPublisherThreadPool getMetricsPublisherForThreadPool(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolMetrics metrics, HystrixThreadPoolProperties properties) {
-        Stream<HystrixMetricsPublisherThreadPool> stream = publishers.stream().map(p ->
-                p.getMetricsPublisherForThreadPool(threadPoolKey, metrics, properties));
+        if (publishers.length == 0) {
+            return NoOpMetricsPublishers.THREAD_POOL;
+        }
         log.trace("getMetricsPublisherForThreadPool {}", threadPoolKey.name());
-        return () -> stream.forEach(HystrixMetricsPublisherThreadPool::initialize);
+        HystrixMetricsPublisherThreadPool[] delegates = resolve(HystrixMetricsPublisherThreadPool[]::new, threadPoolKey.name(), p ->
+                p.getMetricsPublisherForThreadPool(threadPoolKey, metrics, properties));
+        return () -> initialize(delegates, HystrixMetricsPublisherThreadPool::initialize, threadPoolKey.name());
     }
 
     @Override
     public HystrixMetricsPublisherCollapser getMetricsPublisherForCollapser(HystrixCollapserKey collapserKey, HystrixCollapserMetrics metrics, HystrixCollapserProperties properties) {
-        Stream<HystrixMetricsPublisherCollapser> stream = publishers.stream().map(p ->
-                p.getMetricsPublisherForCollapser(collapserKey, metrics, properties));
+        if (publishers.length == 0) {
+            return NoOpMetricsPublishers.COLLAPSER;
+        }
         log.trace("getMetricsPublisherForCollapser {}", collapserKey.name());
-        return () -> stream.forEach(HystrixMetricsPublisherCollapser::initialize);
+        HystrixMetricsPublisherCollapser[] delegates = resolve(HystrixMetricsPublisherCollapser[]::new, collapserKey.name(), p ->
+                p.getMetricsPublisherForCollapser(collapserKey, metrics, properties));
+        return () -> initialize(delegates, HystrixMetricsPublisherCollapser::initialize, collapserKey.name());
+    }
+
+    /**
+     * Eagerly asks every plugin for its publisher, a failed plugin leaves null in the result
+     */
+    private <P> P[] resolve(IntFunction<P[]> arrayFactory, String name, Function<HystrixMetricsPublisher, P> factory) {
+        P[] delegates = arrayFactory.apply(publishers.length);
+        for (int i = 0; i < publishers.length; i++) {
+            long start = System.nanoTime();
+            try {
+                delegates[i] = factory.apply(publishers[i]);
+                statistics[i].record(System.nanoTime() - start, false);
+            } catch (RuntimeException e) {
+                statistics[i].record(System.nanoTime() - start, true);
+                log.warn("Failed to create publisher of {} for {}", statistics[i].getName(), name, e);
+            }
+        }
+        return delegates;
+    }
+
+    private <P> void initialize(P[] delegates, Consumer<P> initializer, String name) {
+        for (int i = 0; i < delegates.length; i++) {
+            if (delegates[i] == null) {
+                continue;
+            }
+            if (executor == null) {
+                initializeSafely(i, delegates[i], initializer, name);
+            } else {
+                submit(i, delegates[i], initializer, name);
+            }
+        }
+    }
+
+    private <P> void submit(int index, P delegate, Consumer<P> initializer, String name) {
+        try {
+            executor.execute(() -> initializeSafely(index, delegate, initializer, name));
+        } catch (RejectedExecutionException e) {
+            statistics[index].record(0, true);
+            log.warn("Initialization of {} for {} was rejected", statistics[index].getName(), name, e);
+        }
+    }
+
+    private <P> void initializeSafely(int index, P delegate, Consumer<P> initializer, String name) {
+        long start = System.nanoTime();
+        try {
+            initializer.accept(delegate);
+            long time = System.nanoTime() - start;
+            statistics[index].record(time, false);
+            if (log.isDebugEnabled()) {
+                log.debug("Initialized {} for {} in {} us", statistics[index].getName(), name, TimeUnit.NANOSECONDS.toMicros(time));
+            }
+        } catch (RuntimeException e) {
+            long time = System.nanoTime() - start;
+            statistics[index].record(time, true);
+            log.warn("Failed to initialize {} for {} in {} us", statistics[index].getName(), name, TimeUnit.NANOSECONDS.toMicros(time), e);
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.ringcentral.platform.hystrix;
+
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records calls of delegates of a composed plugin that is invoked on every command execution.
+ * Without timing nothing but failures is recorded, so a call costs nothing beyond the delegate itself.
+ * Only the first failure of every delegate is logged as a warning, the rest are logged on debug level.
+ */
+final class DelegateRecorder {
+
+    private final Logger log;
+    private final DelegateStatistics[] statistics;
+    private final boolean timed;
+
+    DelegateRecorder(Logger log, Object[] delegates, boolean timed) {
+        this.log = log;
+        this.timed = timed;
+        this.statistics = new DelegateStatistics[delegates.length];
+        for (int i = 0; i < delegates.length; i++) {
+            statistics[i] = new DelegateStatistics(delegates[i].getClass().getName());
+        }
+    }
+
+    List<DelegateStatistics> getStatistics() {
+        return Collections.unmodifiableList(Arrays.asList(statistics));
+    }
+
+    long start() {
+        return timed ? System.nanoTime() : 0;
+    }
+
+    void succeeded(int index, long start) {
+        if (timed) {
+            statistics[index].record(System.nanoTime() - start, false);
+        }
+    }
+
+    void failed(int index, long start, String method, RuntimeException e) {
+        DelegateStatistics delegate = statistics[index];
+        if (timed) {
+            delegate.record(System.nanoTime() - start, true);
+        } else {
+            delegate.recordFailure();
+        }
+        if (delegate.getFailureCount() == 1) {
+            log.warn("{} of {} failed", method, delegate.getName(), e);
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} of {} failed", method, delegate.getName(), e);
+        }
+    }
+}
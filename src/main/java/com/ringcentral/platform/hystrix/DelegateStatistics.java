@@ -0,0 +1,70 @@
+package com.ringcentral.platform.hystrix;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of invocations, failures and time spent in one delegate plugin of a composed plugin
+ */
+public final class DelegateStatistics {
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+    private final LongAccumulator maxTimeNanos = new LongAccumulator(Math::max, 0);
+
+    DelegateStatistics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return class name of the delegate
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocationCount() {
+        return invocations.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getTotalTimeNanos() {
+        return totalTimeNanos.sum();
+    }
+
+    public long getMaxTimeNanos() {
+        return maxTimeNanos.get();
+    }
+
+    /**
+     * Counts failure of a delegate whose invocations are not timed
+     */
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void record(long timeNanos, boolean failed) {
+        invocations.increment();
+        totalTimeNanos.add(timeNanos);
+        maxTimeNanos.accumulate(timeNanos);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DelegateStatistics{" +
+                "name='" + name + '\'' +
+                ", invocations=" + getInvocationCount() +
+                ", failures=" + getFailureCount() +
+                ", totalTimeNanos=" + getTotalTimeNanos() +
+                ", maxTimeNanos=" + getMaxTimeNanos() +
+                '}';
+    }
+}
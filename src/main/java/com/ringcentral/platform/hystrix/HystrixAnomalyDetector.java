@@ -0,0 +1,231 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Subscription;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Optional detector that warns about latency or error rate of a command drifting away from its baseline,
+ * usually long before the circuit breaker opens.
+ * Every command keeps a fast and a slow exponentially weighted moving average of execution latency and error rate
+ * and a streaming estimate of the 99th percentile of latency, so memory per command is constant.
+ * The percentile is the baseline of tail latency: the recent share of completions slower than it is expected to be 1%,
+ * so a regression of the tail is reported even when the mean latency doesn't change.
+ * An anomaly starts when the recent value exceeds the baseline by the configured factor and ends when it falls
+ * below the middle between them, only the transitions are emitted.
+ */
+public class HystrixAnomalyDetector implements AutoCloseable {
+
+    /** weight of a new value in the recent average, about the last 10 completions **/
+    static final double FAST_ALPHA = 0.1;
+    /** weight of a new value in the baseline, about the last 500 completions **/
+    static final double SLOW_ALPHA = 0.002;
+    /** weight of a new value in the recent share of slow completions, about the last 200 completions **/
+    static final double TAIL_ALPHA = 0.005;
+    static final double TAIL_QUANTILE = 0.99;
+    /** error rate below this value is never reported, otherwise a single failure would depart from a zero baseline **/
+    static final double MIN_ERROR_RATE = 0.05;
+    /** latency below this value in milliseconds is never reported **/
+    static final double MIN_LATENCY = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixAnomalyDetector.class);
+    private static final BitSet ERRORS = new BitSet();
+
+    static {
+        for (HystrixEventType eventType : new HystrixEventType[]{
+                HystrixEventType.FAILURE, HystrixEventType.TIMEOUT, HystrixEventType.SHORT_CIRCUITED,
+                HystrixEventType.THREAD_POOL_REJECTED, HystrixEventType.SEMAPHORE_REJECTED}) {
+            ERRORS.set(eventType.ordinal());
+        }
+    }
+
+    private final double latencyFactor;
+    private final double errorRateFactor;
+    private final long warmUpCount;
+    private final ConcurrentMap<HystrixCommandKey, Baseline> baselines = new ConcurrentHashMap<>();
+    private final Subject<HystrixAnomalyEvent, HystrixAnomalyEvent> events = PublishSubject.<HystrixAnomalyEvent>create().toSerialized();
+    private final Subscription subscription;
+
+    /**
+     * Creates detector that reports latency or error rate growing 3 times after 200 completions of warm-up
+     */
+    public HystrixAnomalyDetector(HystrixEventStream<HystrixCommandCompletion> stream) {
+        this(stream, 3, 3, 200);
+    }
+
+    /**
+     * @param warmUpCount number of completions of a command before its baseline is trusted
+     */
+    public HystrixAnomalyDetector(HystrixEventStream<HystrixCommandCompletion> stream,
+                                  double latencyFactor, double errorRateFactor, long warmUpCount) {
+        if (latencyFactor <= 1 || errorRateFactor <= 1) {
+            throw new IllegalArgumentException("Factors must be greater than 1");
+        }
+        this.latencyFactor = latencyFactor;
+        this.errorRateFactor = errorRateFactor;
+        this.warmUpCount = warmUpCount;
+        this.subscription = stream.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+    }
+
+    /**
+     * @return hot stream of anomaly transitions
+     */
+    public Observable<HystrixAnomalyEvent> observe() {
+        return events;
+    }
+
+    @Override
+    public void close() {
+        subscription.unsubscribe();
+        events.onCompleted();
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        HystrixCommandKey key = completion.getCommandKey();
+        Baseline baseline = baselines.get(key);
+        if (baseline == null) {
+            baseline = baselines.computeIfAbsent(key, Baseline::new);
+        }
+        baseline.record(completion);
+    }
+
+    private final class Baseline {
+
+        private final HystrixCommandKey key;
+        private final P2Quantile latencyQuantile = new P2Quantile(TAIL_QUANTILE);
+        /** transitions not emitted yet, guarded by the lock of the baseline **/
+        private final Queue<HystrixAnomalyEvent> pending = new ArrayDeque<>(4);
+        private long count;
+        private long latencyCount;
+        private double recentLatency;
+        private double baselineLatency;
+        private double recentTailRate;
+        private double recentErrorRate;
+        private double baselineErrorRate;
+        private boolean latencyAnomaly;
+        private boolean tailLatencyAnomaly;
+        private boolean errorRateAnomaly;
+        private boolean emitting;
+
+        Baseline(HystrixCommandKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Events are queued under the lock and emitted after it is released, so subscribers never run under it
+         * on the command thread. Only one thread emits events of the command at a time and it drains the queue
+         * in order, so a subscriber never sees the end of an anomaly before its start.
+         */
+        void record(HystrixCommandCompletion completion) {
+            synchronized (this) {
+                count++;
+                double error = completion.getEventCounts().containsAnyOf(ERRORS) ? 1 : 0;
+                recentErrorRate = average(recentErrorRate, error, FAST_ALPHA, count);
+                baselineErrorRate = average(baselineErrorRate, error, SLOW_ALPHA, count);
+                long latency = completion.getExecutionLatency();
+                if (latency >= 0) {
+                    latencyCount++;
+                    recentLatency = average(recentLatency, latency, FAST_ALPHA, latencyCount);
+                    baselineLatency = average(baselineLatency, latency, SLOW_ALPHA, latencyCount);
+                    // latency is measured in whole milliseconds, so only values above the rounded up estimate are slower
+                    double tail = latencyCount > 1 && latency > Math.ceil(latencyQuantile.get()) ? 1 : 0;
+                    recentTailRate = average(recentTailRate, tail, TAIL_ALPHA, latencyCount);
+                    latencyQuantile.add(latency);
+                    if (latencyCount > warmUpCount) {
+                        HystrixAnomalyEvent latencyEvent = transition(HystrixAnomalyEvent.Type.LATENCY, latencyAnomaly,
+                                recentLatency, baselineLatency, latencyFactor, MIN_LATENCY);
+                        if (latencyEvent != null) {
+                            latencyAnomaly = latencyEvent.isStarted();
+                            pending.add(latencyEvent);
+                        }
+                        HystrixAnomalyEvent tailLatencyEvent = transition(HystrixAnomalyEvent.Type.TAIL_LATENCY, tailLatencyAnomaly,
+                                recentTailRate, 1 - TAIL_QUANTILE, latencyFactor, 1 - TAIL_QUANTILE);
+                        if (tailLatencyEvent != null) {
+                            tailLatencyAnomaly = tailLatencyEvent.isStarted();
+                            pending.add(tailLatencyEvent);
+                        }
+                    }
+                }
+                if (count > warmUpCount) {
+                    HystrixAnomalyEvent errorRateEvent = transition(HystrixAnomalyEvent.Type.ERROR_RATE, errorRateAnomaly,
+                            recentErrorRate, baselineErrorRate, errorRateFactor, MIN_ERROR_RATE);
+                    if (errorRateEvent != null) {
+                        errorRateAnomaly = errorRateEvent.isStarted();
+                        pending.add(errorRateEvent);
+                    }
+                }
+                if (emitting || pending.isEmpty()) {
+                    return;
+                }
+                emitting = true;
+            }
+            drain();
+        }
+
+        private void drain() {
+            boolean drained = false;
+            try {
+                while (true) {
+                    HystrixAnomalyEvent event;
+                    synchronized (this) {
+                        event = pending.poll();
+                        if (event == null) {
+                            emitting = false;
+                            drained = true;
+                            return;
+                        }
+                    }
+                    log.debug("{}", event);
+                    events.onNext(event);
+                }
+            } finally {
+                if (!drained) {
+                    synchronized (this) {
+                        emitting = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return event if the anomaly started or ended, otherwise null
+         */
+        private HystrixAnomalyEvent transition(HystrixAnomalyEvent.Type type, boolean active, double recent, double baseline,
+                                               double factor, double min) {
+            double reference = Math.max(baseline, min);
+            if (!active && recent > reference * factor) {
+                return event(type, true, recent, baseline);
+            }
+            if (active && recent < reference * (1 + factor) / 2) {
+                return event(type, false, recent, baseline);
+            }
+            return null;
+        }
+
+        private HystrixAnomalyEvent event(HystrixAnomalyEvent.Type type, boolean started, double recent, double baseline) {
+            double quantile = type == HystrixAnomalyEvent.Type.ERROR_RATE ? Double.NaN : latencyQuantile.get();
+            return new HystrixAnomalyEvent(key, type, started, recent, baseline, quantile, System.currentTimeMillis());
+        }
+
+    }
+
+    /**
+     * Until enough values are seen, the average is the arithmetic mean, so the first values don't dominate
+     */
+    private static double average(double average, double value, double alpha, long count) {
+        return average + (value - average) * Math.max(alpha, 1.0 / count);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+
+/**
+ * Transition of a command into or out of an anomaly detected by {@link HystrixAnomalyDetector}
+ */
+public final class HystrixAnomalyEvent {
+
+    public enum Type {
+        /** recent mean execution latency in milliseconds departs from the baseline **/
+        LATENCY,
+        /** recent share of completions slower than the baseline 99th percentile of latency departs from the expected 1% **/
+        TAIL_LATENCY,
+        /** recent share of completions with failures, timeouts or rejections departs from the baseline **/
+        ERROR_RATE
+    }
+
+    private final HystrixCommandKey commandKey;
+    private final Type type;
+    private final boolean started;
+    private final double recent;
+    private final double baseline;
+    private final double baselineQuantile;
+    private final long timestamp;
+
+    HystrixAnomalyEvent(HystrixCommandKey commandKey, Type type, boolean started, double recent, double baseline,
+                        double baselineQuantile, long timestamp) {
+        this.commandKey = commandKey;
+        this.type = type;
+        this.started = started;
+        this.recent = recent;
+        this.baseline = baseline;
+        this.baselineQuantile = baselineQuantile;
+        this.timestamp = timestamp;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return true if the anomaly started, false if the command returned to its baseline
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * @return fast moving average of latency or error rate
+     */
+    public double getRecent() {
+        return recent;
+    }
+
+    /**
+     * @return slow moving average of latency or error rate
+     */
+    public double getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * @return estimate of the 99th percentile of execution latency, for {@link Type#LATENCY} only
+     */
+    public double getBaselineQuantile() {
+        return baselineQuantile;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixAnomalyEvent{command=" + commandKey.name() + ", type=" + type + ", started=" + started
+                + ", recent=" + recent + ", baseline=" + baseline + ", baselineQuantile=" + baselineQuantile + '}';
+    }
+}
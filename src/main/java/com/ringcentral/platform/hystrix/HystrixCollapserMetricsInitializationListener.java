@@ -0,0 +1,8 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCollapserMetrics;
+
+public interface HystrixCollapserMetricsInitializationListener {
+
+    void initialize(HystrixCollapserMetrics metrics);
+}
@@ -0,0 +1,105 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+
+/**
+ * Immutable per-command aggregate of all completions observed during one interval of {@link RollingHystrixCommandAggregateStream}
+ */
+public final class HystrixCommandAggregate {
+
+    private final HystrixCommandKey commandKey;
+    private final long intervalStart;
+    private final long intervalEnd;
+    private final long[] eventCounts;
+    private final long completionCount;
+    private final long executionCount;
+    private final long executionLatencySum;
+    private final long executionLatencyMax;
+    private final long totalLatencySum;
+    private final long totalLatencyMax;
+    private final int concurrency;
+
+    HystrixCommandAggregate(HystrixCommandKey commandKey, long intervalStart, long intervalEnd, long[] eventCounts,
+                            long completionCount, long executionCount, long executionLatencySum, long executionLatencyMax,
+                            long totalLatencySum, long totalLatencyMax, int concurrency) {
+        this.commandKey = commandKey;
+        this.intervalStart = intervalStart;
+        this.intervalEnd = intervalEnd;
+        this.eventCounts = eventCounts;
+        this.completionCount = completionCount;
+        this.executionCount = executionCount;
+        this.executionLatencySum = executionLatencySum;
+        this.executionLatencyMax = executionLatencyMax;
+        this.totalLatencySum = totalLatencySum;
+        this.totalLatencyMax = totalLatencyMax;
+        this.concurrency = concurrency;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    /** start of the interval in epoch milliseconds **/
+    public long getIntervalStart() {
+        return intervalStart;
+    }
+
+    /** end of the interval in epoch milliseconds **/
+    public long getIntervalEnd() {
+        return intervalEnd;
+    }
+
+    public long getCount(HystrixEventType eventType) {
+        return eventCounts[eventType.ordinal()];
+    }
+
+    public long getCompletionCount() {
+        return completionCount;
+    }
+
+    /** number of completions where the command was actually executed **/
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    public long getExecutionLatencySum() {
+        return executionLatencySum;
+    }
+
+    public long getExecutionLatencyMax() {
+        return executionLatencyMax;
+    }
+
+    public long getExecutionLatencyMean() {
+        return executionCount == 0 ? 0 : executionLatencySum / executionCount;
+    }
+
+    public long getTotalLatencySum() {
+        return totalLatencySum;
+    }
+
+    public long getTotalLatencyMax() {
+        return totalLatencyMax;
+    }
+
+    public long getTotalLatencyMean() {
+        return completionCount == 0 ? 0 : totalLatencySum / completionCount;
+    }
+
+    /** number of concurrent executions of the command at the moment the interval was closed **/
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixCommandAggregate{" +
+                "commandKey=" + commandKey.name() +
+                ", completions=" + completionCount +
+                ", executionLatencyMax=" + executionLatencyMax +
+                ", totalLatencyMax=" + totalLatencyMax +
+                ", concurrency=" + concurrency +
+                '}';
+    }
+}
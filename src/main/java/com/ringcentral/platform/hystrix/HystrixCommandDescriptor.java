@@ -0,0 +1,92 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keys that identify a command together with its group and thread pool, e.g. to warm it up with {@link HystrixWarmUp},
+ * and the properties the command had when it was seen. Descriptors are equal if they identify the same command,
+ * properties are not compared.
+ */
+public final class HystrixCommandDescriptor {
+
+    private final HystrixCommandGroupKey groupKey;
+    private final HystrixCommandKey commandKey;
+    private final HystrixThreadPoolKey threadPoolKey;
+    private final Map<String, String> properties;
+
+    public HystrixCommandDescriptor(HystrixCommandGroupKey groupKey, HystrixCommandKey commandKey, HystrixThreadPoolKey threadPoolKey) {
+        this(groupKey, commandKey, threadPoolKey, Collections.emptyMap());
+    }
+
+    /**
+     * @param properties effective command and thread pool properties, as recorded by {@link HystrixSeenCommands}
+     */
+    public HystrixCommandDescriptor(HystrixCommandGroupKey groupKey, HystrixCommandKey commandKey, HystrixThreadPoolKey threadPoolKey,
+                                    Map<String, String> properties) {
+        this.groupKey = Objects.requireNonNull(groupKey, "groupKey");
+        this.commandKey = Objects.requireNonNull(commandKey, "commandKey");
+        this.threadPoolKey = Objects.requireNonNull(threadPoolKey, "threadPoolKey");
+        this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+    }
+
+    public HystrixCommandGroupKey getGroupKey() {
+        return groupKey;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    public HystrixThreadPoolKey getThreadPoolKey() {
+        return threadPoolKey;
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return setter with the recorded properties as defaults, so the command gets the same properties it had
+     * when it was seen, unless they are overridden by configuration
+     * @throws IllegalArgumentException if a recorded property value is malformed
+     */
+    public HystrixCommand.Setter toSetter() {
+        return HystrixCommand.Setter.withGroupKey(groupKey)
+                .andCommandKey(commandKey)
+                .andThreadPoolKey(threadPoolKey)
+                .andCommandPropertiesDefaults(HystrixPropertyDefaults.toCommandDefaults(properties))
+                .andThreadPoolPropertiesDefaults(HystrixPropertyDefaults.toThreadPoolDefaults(properties));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HystrixCommandDescriptor)) {
+            return false;
+        }
+        HystrixCommandDescriptor that = (HystrixCommandDescriptor) o;
+        return groupKey.name().equals(that.groupKey.name())
+                && commandKey.name().equals(that.commandKey.name())
+                && threadPoolKey.name().equals(that.threadPoolKey.name());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(groupKey.name(), commandKey.name(), threadPoolKey.name());
+    }
+
+    @Override
+    public String toString() {
+        return groupKey.name() + '/' + commandKey.name() + '/' + threadPoolKey.name();
+    }
+}
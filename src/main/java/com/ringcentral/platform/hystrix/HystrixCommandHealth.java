@@ -0,0 +1,67 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+
+/**
+ * Immutable health of one command taken by {@link HystrixHealthSnapshotService}
+ */
+public final class HystrixCommandHealth {
+
+    private final HystrixCommandKey commandKey;
+    private final HystrixCommandGroupKey commandGroupKey;
+    private final long totalRequests;
+    private final long errorCount;
+    private final int errorPercentage;
+    private final boolean circuitOpen;
+    private final int concurrentExecutionCount;
+
+    HystrixCommandHealth(HystrixCommandKey commandKey, HystrixCommandGroupKey commandGroupKey, long totalRequests,
+                         long errorCount, int errorPercentage, boolean circuitOpen, int concurrentExecutionCount) {
+        this.commandKey = commandKey;
+        this.commandGroupKey = commandGroupKey;
+        this.totalRequests = totalRequests;
+        this.errorCount = errorCount;
+        this.errorPercentage = errorPercentage;
+        this.circuitOpen = circuitOpen;
+        this.concurrentExecutionCount = concurrentExecutionCount;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    public HystrixCommandGroupKey getCommandGroupKey() {
+        return commandGroupKey;
+    }
+
+    /**
+     * @return number of requests in the rolling health window of the command
+     */
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public int getErrorPercentage() {
+        return errorPercentage;
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    public int getConcurrentExecutionCount() {
+        return concurrentExecutionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixCommandHealth{command=" + commandKey.name() + ", totalRequests=" + totalRequests
+                + ", errorPercentage=" + errorPercentage + ", circuitOpen=" + circuitOpen
+                + ", concurrentExecutionCount=" + concurrentExecutionCount + '}';
+    }
+}
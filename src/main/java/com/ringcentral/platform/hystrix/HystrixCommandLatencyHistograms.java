@@ -0,0 +1,107 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Subscription;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional sink that records execution and total latency of every completion into rolling {@link LatencyHistogram}s per command key.
+ * One sink can serve percentiles to any number of consumers without each of them keeping its own histograms.
+ */
+public class HystrixCommandLatencyHistograms implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixCommandLatencyHistograms.class);
+
+    private final ConcurrentMap<HystrixCommandKey, Histograms> histograms = new ConcurrentHashMap<>();
+    private final int windowCount;
+    private final long windowLengthInMillis;
+    private final int stripes;
+    private final Subscription subscription;
+
+    /**
+     * Creates histograms with rolling period of 1 minute split into 6 windows
+     */
+    public HystrixCommandLatencyHistograms(HystrixEventStream<HystrixCommandCompletion> stream) {
+        this(stream, 6, 10, TimeUnit.SECONDS, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public HystrixCommandLatencyHistograms(HystrixEventStream<HystrixCommandCompletion> stream,
+                                           int windowCount, long windowLength, TimeUnit unit, int stripes) {
+        this.windowCount = windowCount;
+        this.windowLengthInMillis = unit.toMillis(windowLength);
+        this.stripes = stripes;
+        this.subscription = stream.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+    }
+
+    public LatencyHistogramSnapshot getExecutionLatency(HystrixCommandKey key) {
+        Histograms h = histograms.get(key);
+        return h == null ? LatencyHistogramSnapshot.EMPTY : h.executionLatency.snapshot();
+    }
+
+    public LatencyHistogramSnapshot getTotalLatency(HystrixCommandKey key) {
+        Histograms h = histograms.get(key);
+        return h == null ? LatencyHistogramSnapshot.EMPTY : h.totalLatency.snapshot();
+    }
+
+    /**
+     * @return execution latency merged across all commands
+     */
+    public LatencyHistogramSnapshot getExecutionLatency() {
+        LatencyHistogramSnapshot result = LatencyHistogramSnapshot.EMPTY;
+        for (Histograms h : histograms.values()) {
+            result = result.merge(h.executionLatency.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * @return total latency merged across all commands
+     */
+    public LatencyHistogramSnapshot getTotalLatency() {
+        LatencyHistogramSnapshot result = LatencyHistogramSnapshot.EMPTY;
+        for (Histograms h : histograms.values()) {
+            result = result.merge(h.totalLatency.snapshot());
+        }
+        return result;
+    }
+
+    public Set<HystrixCommandKey> getCommandKeys() {
+        return Collections.unmodifiableSet(histograms.keySet());
+    }
+
+    @Override
+    public void close() {
+        subscription.unsubscribe();
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        HystrixCommandKey key = completion.getCommandKey();
+        Histograms h = histograms.get(key);
+        if (h == null) {
+            h = histograms.computeIfAbsent(key, k -> new Histograms());
+        }
+        long executionLatency = completion.getExecutionLatency();
+        if (executionLatency >= 0) {
+            h.executionLatency.record(executionLatency);
+        }
+        long totalLatency = completion.getTotalLatency();
+        if (totalLatency >= 0) {
+            h.totalLatency.record(totalLatency);
+        }
+    }
+
+    private final class Histograms {
+
+        private final LatencyHistogram executionLatency = new LatencyHistogram(windowCount, windowLengthInMillis, stripes);
+        private final LatencyHistogram totalLatency = new LatencyHistogram(windowCount, windowLengthInMillis, stripes);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixEventType;
+
+import java.util.Arrays;
+
+/**
+ * Immutable counts of events and latency histogram buckets of one command, part of {@link MergeableHystrixSnapshot}
+ */
+public final class HystrixCommandSnapshot {
+
+    static final int EVENT_TYPE_COUNT = HystrixEventType.values().length;
+
+    private final long[] eventCounts;
+    private final long[] executionLatency;
+    private final long[] totalLatency;
+
+    HystrixCommandSnapshot(long[] eventCounts, long[] executionLatency, long[] totalLatency) {
+        this.eventCounts = eventCounts;
+        this.executionLatency = executionLatency;
+        this.totalLatency = totalLatency;
+    }
+
+    public long getCount(HystrixEventType eventType) {
+        return eventCounts[eventType.ordinal()];
+    }
+
+    public LatencyHistogramSnapshot getExecutionLatency() {
+        return new LatencyHistogramSnapshot(Arrays.copyOf(executionLatency, executionLatency.length));
+    }
+
+    public LatencyHistogramSnapshot getTotalLatency() {
+        return new LatencyHistogramSnapshot(Arrays.copyOf(totalLatency, totalLatency.length));
+    }
+
+    public HystrixCommandSnapshot merge(HystrixCommandSnapshot other) {
+        return new HystrixCommandSnapshot(sum(eventCounts, other.eventCounts),
+                sum(executionLatency, other.executionLatency),
+                sum(totalLatency, other.totalLatency));
+    }
+
+    long[] eventCounts() {
+        return eventCounts;
+    }
+
+    long[] executionLatency() {
+        return executionLatency;
+    }
+
+    long[] totalLatency() {
+        return totalLatency;
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length);
+        for (int i = 0; i < result.length; i++) {
+            result[i] += b[i];
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HystrixCommandSnapshot)) {
+            return false;
+        }
+        HystrixCommandSnapshot other = (HystrixCommandSnapshot) o;
+        return Arrays.equals(eventCounts, other.eventCounts)
+                && Arrays.equals(executionLatency, other.executionLatency)
+                && Arrays.equals(totalLatency, other.totalLatency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(eventCounts) + Arrays.hashCode(executionLatency)) + Arrays.hashCode(totalLatency);
+    }
+}
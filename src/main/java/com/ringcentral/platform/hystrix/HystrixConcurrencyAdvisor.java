@@ -0,0 +1,256 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recommends concurrency limits of commands and thread pools from observed completions.
+ * Every interval the concurrency needed for the current throughput is calculated with Little's law,
+ * and the limit of every command is adjusted by the gradient of latency: while the mean latency stays near
+ * the no-load latency the limit grows, when requests start to queue and latency grows the limit shrinks.
+ * Recommendation of a thread pool is the sum of recommendations of commands executed in it.
+ * A command without completions reports zero throughput and its limit decays, after {@link #IDLE_INTERVALS}
+ * such intervals it is not reported at all, so a command that stopped doesn't inflate the limit of its thread pool.
+ */
+public class HystrixConcurrencyAdvisor implements HystrixThreadPoolMetricsInitializationListener, AutoCloseable {
+
+    /** number of intervals the no-load latency is taken from **/
+    static final int NO_LOAD_INTERVALS = 10;
+    /** weight of a new limit **/
+    static final double SMOOTHING = 0.2;
+    static final double MIN_GRADIENT = 0.5;
+    /** number of intervals without completions after which a command is no longer reported **/
+    static final int IDLE_INTERVALS = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixConcurrencyAdvisor.class);
+
+    private final ConcurrentMap<HystrixCommandKey, CommandState> commands = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, HystrixThreadPoolMetrics> threadPools = new ConcurrentHashMap<>();
+    private final Subject<HystrixConcurrencyRecommendations, HystrixConcurrencyRecommendations> updates =
+            PublishSubject.<HystrixConcurrencyRecommendations>create().toSerialized();
+    private volatile HystrixConcurrencyRecommendations recommendations = HystrixConcurrencyRecommendations.EMPTY;
+    private final long intervalInMillis;
+    private final Subscription subscription;
+    private final Scheduler.Worker worker;
+
+    public HystrixConcurrencyAdvisor(HystrixMetricsInitializationNotifier notifier, HystrixEventStream<HystrixCommandCompletion> stream,
+                                     long interval, TimeUnit unit) {
+        this(notifier, stream, interval, unit, Schedulers.computation());
+    }
+
+    public HystrixConcurrencyAdvisor(HystrixMetricsInitializationNotifier notifier, HystrixEventStream<HystrixCommandCompletion> stream,
+                                     long interval, TimeUnit unit, Scheduler scheduler) {
+        this.intervalInMillis = unit.toMillis(interval);
+        notifier.addThreadPoolListener(this);
+        HystrixThreadPoolMetrics.getInstances().forEach(this::initialize);
+        subscription = stream.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+        worker = scheduler.createWorker();
+        worker.schedulePeriodically(this::update, interval, interval, unit);
+    }
+
+    @Override
+    public void initialize(HystrixThreadPoolMetrics metrics) {
+        threadPools.putIfAbsent(metrics.getThreadPoolKey().name(), metrics);
+    }
+
+    /**
+     * @return the latest recommendations
+     */
+    public HystrixConcurrencyRecommendations getRecommendations() {
+        return recommendations;
+    }
+
+    /**
+     * @return the latest recommendation for the command or null if it had no completions yet
+     */
+    public HystrixConcurrencyRecommendation getRecommendation(HystrixCommandKey key) {
+        return recommendations.getCommands().get(key.name());
+    }
+
+    /**
+     * @return the latest recommendation for the thread pool or null if none of its commands had completions yet
+     */
+    public HystrixConcurrencyRecommendation getRecommendation(HystrixThreadPoolKey key) {
+        return recommendations.getThreadPools().get(key.name());
+    }
+
+    /**
+     * @return hot stream of recommendations calculated every interval
+     */
+    public Observable<HystrixConcurrencyRecommendations> observe() {
+        return updates;
+    }
+
+    @Override
+    public void close() {
+        subscription.unsubscribe();
+        worker.unsubscribe();
+        updates.onCompleted();
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        long latency = completion.getExecutionLatency();
+        if (latency < 0) {
+            return;
+        }
+        HystrixCommandKey key = completion.getCommandKey();
+        CommandState state = commands.get(key);
+        if (state == null) {
+            state = commands.computeIfAbsent(key, CommandState::new);
+        }
+        state.record(completion, latency);
+    }
+
+    private void update() {
+        try {
+            Map<String, HystrixConcurrencyRecommendation> commandRecommendations = new LinkedHashMap<>();
+            Map<String, PoolTotals> pools = new LinkedHashMap<>();
+            for (CommandState state : commands.values()) {
+                HystrixConcurrencyRecommendation recommendation = state.update();
+                if (recommendation == null) {
+                    continue;
+                }
+                commandRecommendations.put(recommendation.getName(), recommendation);
+                HystrixThreadPoolKey threadPoolKey = state.threadPoolKey;
+                if (threadPoolKey != null) {
+                    pools.computeIfAbsent(threadPoolKey.name(), k -> new PoolTotals()).add(recommendation);
+                }
+            }
+            Map<String, HystrixConcurrencyRecommendation> poolRecommendations = new LinkedHashMap<>();
+            pools.forEach((name, totals) -> poolRecommendations.put(name, totals.toRecommendation(name, threadPools.get(name))));
+            HystrixConcurrencyRecommendations result =
+                    new HystrixConcurrencyRecommendations(System.currentTimeMillis(), commandRecommendations, poolRecommendations);
+            recommendations = result;
+            updates.onNext(result);
+        } catch (RuntimeException e) {
+            log.warn("Failed to update concurrency recommendations", e);
+        }
+    }
+
+    private final class CommandState {
+
+        private final HystrixCommandKey key;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder latencySum = new LongAdder();
+        private final LongAccumulator latencyMin = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private volatile HystrixThreadPoolKey threadPoolKey;
+        /** state below is accessed by the scheduler worker only **/
+        private final long[] intervalMins = new long[NO_LOAD_INTERVALS];
+        private long intervals;
+        private int idleIntervals;
+        private double limit;
+        private HystrixConcurrencyRecommendation last;
+
+        CommandState(HystrixCommandKey key) {
+            this.key = key;
+            Arrays.fill(intervalMins, Long.MAX_VALUE);
+        }
+
+        void record(HystrixCommandCompletion completion, long latency) {
+            if (completion.isExecutedInThread() && threadPoolKey == null) {
+                threadPoolKey = completion.getThreadPoolKey();
+            }
+            count.increment();
+            latencySum.add(latency);
+            latencyMin.accumulate(latency);
+        }
+
+        /**
+         * @return new recommendation, or null if the command had no completions for too long
+         */
+        HystrixConcurrencyRecommendation update() {
+            long n = count.sumThenReset();
+            long sum = latencySum.sumThenReset();
+            long min = latencyMin.getThenReset();
+            if (n == 0) {
+                if (last == null || ++idleIntervals > IDLE_INTERVALS) {
+                    return null;
+                }
+                adjustLimit(1, 1);
+                last = new HystrixConcurrencyRecommendation(key.name(), 0, 0, last.getNoLoadLatency(),
+                        0, (int) Math.ceil(limit), currentLimit());
+                return last;
+            }
+            idleIntervals = 0;
+            intervalMins[(int) (intervals++ % NO_LOAD_INTERVALS)] = min;
+            long noLoadLatency = Long.MAX_VALUE;
+            for (long intervalMin : intervalMins) {
+                noLoadLatency = Math.min(noLoadLatency, intervalMin);
+            }
+            double throughput = n * 1000.0 / intervalInMillis;
+            double meanLatency = (double) sum / n;
+            double averageConcurrency = throughput * meanLatency / 1000;
+            // latency is shifted by 1 ms, so commands completing in 0 ms don't get zero gradient
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1, (noLoadLatency + 1) / (meanLatency + 1)));
+            adjustLimit(gradient, Math.max(1, averageConcurrency));
+            last = new HystrixConcurrencyRecommendation(key.name(), throughput, meanLatency, noLoadLatency,
+                    averageConcurrency, (int) Math.ceil(Math.max(limit, averageConcurrency)), currentLimit());
+            return last;
+        }
+
+        private void adjustLimit(double gradient, double needed) {
+            if (limit == 0) {
+                limit = 2 * needed;
+            } else {
+                // the limit may grow only up to twice of the needed concurrency, so it doesn't grow unbounded on idle commands
+                double newLimit = Math.min(limit * gradient + Math.sqrt(limit), 2 * needed + 1);
+                limit = Math.max(1, limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+            }
+        }
+
+        private int currentLimit() {
+            HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(key);
+            if (metrics == null || threadPoolKey != null) {
+                return -1;
+            }
+            HystrixCommandProperties properties = metrics.getProperties();
+            return properties.executionIsolationStrategy().get() == HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE
+                    ? properties.executionIsolationSemaphoreMaxConcurrentRequests().get() : -1;
+        }
+    }
+
+    private static final class PoolTotals {
+
+        private double throughput;
+        private double latencySum;
+        private double noLoadLatency = Double.MAX_VALUE;
+        private double averageConcurrency;
+        private int recommendedConcurrency;
+
+        void add(HystrixConcurrencyRecommendation recommendation) {
+            throughput += recommendation.getThroughput();
+            latencySum += recommendation.getThroughput() * recommendation.getMeanLatency();
+            noLoadLatency = Math.min(noLoadLatency, recommendation.getNoLoadLatency());
+            averageConcurrency += recommendation.getAverageConcurrency();
+            recommendedConcurrency += recommendation.getRecommendedConcurrency();
+        }
+
+        HystrixConcurrencyRecommendation toRecommendation(String name, HystrixThreadPoolMetrics metrics) {
+            return new HystrixConcurrencyRecommendation(name, throughput, throughput == 0 ? 0 : latencySum / throughput,
+                    noLoadLatency, averageConcurrency, recommendedConcurrency,
+                    metrics == null ? -1 : metrics.getProperties().coreSize().get());
+        }
+    }
+}
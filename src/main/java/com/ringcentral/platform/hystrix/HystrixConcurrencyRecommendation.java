@@ -0,0 +1,79 @@
+package com.ringcentral.platform.hystrix;
+
+/**
+ * Immutable recommendation of {@link HystrixConcurrencyAdvisor} for one command or thread pool
+ */
+public final class HystrixConcurrencyRecommendation {
+
+    private final String name;
+    private final double throughput;
+    private final double meanLatency;
+    private final double noLoadLatency;
+    private final double averageConcurrency;
+    private final int recommendedConcurrency;
+    private final int currentLimit;
+
+    HystrixConcurrencyRecommendation(String name, double throughput, double meanLatency, double noLoadLatency,
+                                     double averageConcurrency, int recommendedConcurrency, int currentLimit) {
+        this.name = name;
+        this.throughput = throughput;
+        this.meanLatency = meanLatency;
+        this.noLoadLatency = noLoadLatency;
+        this.averageConcurrency = averageConcurrency;
+        this.recommendedConcurrency = recommendedConcurrency;
+        this.currentLimit = currentLimit;
+    }
+
+    /**
+     * @return name of the command or thread pool
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return completions per second during the last interval
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * @return mean execution latency in milliseconds during the last interval
+     */
+    public double getMeanLatency() {
+        return meanLatency;
+    }
+
+    /**
+     * @return the lowest execution latency in milliseconds seen during the recent intervals
+     */
+    public double getNoLoadLatency() {
+        return noLoadLatency;
+    }
+
+    /**
+     * @return concurrency needed for the current throughput and latency according to Little's law
+     */
+    public double getAverageConcurrency() {
+        return averageConcurrency;
+    }
+
+    public int getRecommendedConcurrency() {
+        return recommendedConcurrency;
+    }
+
+    /**
+     * @return configured core size of the thread pool or semaphore limit of the command, -1 for commands isolated by threads
+     */
+    public int getCurrentLimit() {
+        return currentLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixConcurrencyRecommendation{name=" + name + ", throughput=" + throughput + ", meanLatency=" + meanLatency
+                + ", noLoadLatency=" + noLoadLatency + ", averageConcurrency=" + averageConcurrency
+                + ", recommendedConcurrency=" + recommendedConcurrency + ", currentLimit=" + currentLimit + '}';
+    }
+}
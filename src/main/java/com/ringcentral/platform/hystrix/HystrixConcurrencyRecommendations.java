@@ -0,0 +1,42 @@
+package com.ringcentral.platform.hystrix;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable recommendations for all commands and thread pools calculated at one moment
+ */
+public final class HystrixConcurrencyRecommendations {
+
+    static final HystrixConcurrencyRecommendations EMPTY =
+            new HystrixConcurrencyRecommendations(0, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long timestamp;
+    private final Map<String, HystrixConcurrencyRecommendation> commands;
+    private final Map<String, HystrixConcurrencyRecommendation> threadPools;
+
+    HystrixConcurrencyRecommendations(long timestamp, Map<String, HystrixConcurrencyRecommendation> commands,
+                                      Map<String, HystrixConcurrencyRecommendation> threadPools) {
+        this.timestamp = timestamp;
+        this.commands = Collections.unmodifiableMap(commands);
+        this.threadPools = Collections.unmodifiableMap(threadPools);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return recommendations by command name
+     */
+    public Map<String, HystrixConcurrencyRecommendation> getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return recommendations by thread pool name
+     */
+    public Map<String, HystrixConcurrencyRecommendation> getThreadPools() {
+        return threadPools;
+    }
+}
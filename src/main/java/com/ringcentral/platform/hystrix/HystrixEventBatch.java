@@ -0,0 +1,62 @@
+package com.ringcentral.platform.hystrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Batch of events delivered by a batched stream.
+ * The same instance and its backing array are reused for every batch of a subscription,
+ * so the batch is valid only during the {@code onNext} call. Use {@link #toList()} to keep the events.
+ */
+public final class HystrixEventBatch<T> {
+
+    private final Object[] events;
+    private int size;
+
+    HystrixEventBatch(int capacity) {
+        this.events = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return (T) events[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept((T) events[i]);
+        }
+    }
+
+    /**
+     * @return copy of the events that can be safely kept after the batch is reused
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toList() {
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add((T) events[i]);
+        }
+        return result;
+    }
+
+    boolean add(T event) {
+        events[size++] = event;
+        return size == events.length;
+    }
+
+    void clear() {
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+    }
+}
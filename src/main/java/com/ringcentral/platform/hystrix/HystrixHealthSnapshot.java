@@ -0,0 +1,47 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable health of all known commands at one moment
+ */
+public final class HystrixHealthSnapshot {
+
+    static final HystrixHealthSnapshot EMPTY = new HystrixHealthSnapshot(0, Collections.emptyMap(), 0);
+
+    private final long timestamp;
+    private final Map<HystrixCommandKey, HystrixCommandHealth> commands;
+    private final int openCircuitCount;
+
+    HystrixHealthSnapshot(long timestamp, Map<HystrixCommandKey, HystrixCommandHealth> commands, int openCircuitCount) {
+        this.timestamp = timestamp;
+        this.commands = Collections.unmodifiableMap(commands);
+        this.openCircuitCount = openCircuitCount;
+    }
+
+    /**
+     * @return time in milliseconds when the snapshot was taken
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return health of the command or null if the command was unknown when the snapshot was taken
+     */
+    public HystrixCommandHealth get(HystrixCommandKey key) {
+        return commands.get(key);
+    }
+
+    public Collection<HystrixCommandHealth> getCommands() {
+        return commands.values();
+    }
+
+    public int getOpenCircuitCount() {
+        return openCircuitCount;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps an immutable snapshot of error rate, circuit state and concurrency of every command, refreshed on a fixed interval.
+ * Commands are discovered with the initialization notifier, readers get the latest snapshot with a single volatile read,
+ * so health checks and dashboards can poll it as often as they need.
+ */
+public class HystrixHealthSnapshotService implements HystrixMetricsInitializationListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixHealthSnapshotService.class);
+
+    private final ConcurrentMap<String, HystrixCommandMetrics> known = new ConcurrentHashMap<>();
+    /** copy-on-write array of metrics in order of appearance **/
+    private volatile HystrixCommandMetrics[] metrics = new HystrixCommandMetrics[0];
+    private volatile HystrixHealthSnapshot snapshot = HystrixHealthSnapshot.EMPTY;
+    private final Scheduler.Worker worker;
+
+    public HystrixHealthSnapshotService(HystrixMetricsInitializationNotifier notifier, long interval, TimeUnit unit) {
+        this(notifier, interval, unit, Schedulers.computation());
+    }
+
+    public HystrixHealthSnapshotService(HystrixMetricsInitializationNotifier notifier, long interval, TimeUnit unit, Scheduler scheduler) {
+        notifier.addListener(this);
+        HystrixCommandMetrics.getInstances().forEach(this::initialize);
+        refresh();
+        worker = scheduler.createWorker();
+        worker.schedulePeriodically(this::refresh, interval, interval, unit);
+    }
+
+    /**
+     * @return the latest snapshot
+     */
+    public HystrixHealthSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void initialize(HystrixCommandMetrics metrics) {
+        if (known.putIfAbsent(metrics.getCommandKey().name(), metrics) == null) {
+            synchronized (this) {
+                HystrixCommandMetrics[] copy = Arrays.copyOf(this.metrics, this.metrics.length + 1);
+                copy[copy.length - 1] = metrics;
+                this.metrics = copy;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        worker.unsubscribe();
+    }
+
+    private void refresh() {
+        try {
+            HystrixCommandMetrics[] current = metrics;
+            Map<HystrixCommandKey, HystrixCommandHealth> commands = new LinkedHashMap<>(current.length * 2);
+            int openCircuitCount = 0;
+            for (HystrixCommandMetrics m : current) {
+                HystrixCommandHealth health = health(m);
+                if (health.isCircuitOpen()) {
+                    openCircuitCount++;
+                }
+                commands.put(health.getCommandKey(), health);
+            }
+            snapshot = new HystrixHealthSnapshot(System.currentTimeMillis(), commands, openCircuitCount);
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh health snapshot", e);
+        }
+    }
+
+    private static HystrixCommandHealth health(HystrixCommandMetrics metrics) {
+        HystrixCommandKey key = metrics.getCommandKey();
+        HystrixCommandMetrics.HealthCounts counts = metrics.getHealthCounts();
+        HystrixCircuitBreaker circuitBreaker = HystrixCircuitBreaker.Factory.getInstance(key);
+        return new HystrixCommandHealth(key, metrics.getCommandGroup(),
+                counts.getTotalRequests(),
+                counts.getErrorCount(),
+                counts.getErrorPercentage(),
+                circuitBreaker != null && circuitBreaker.isOpen(),
+                metrics.getCurrentConcurrentExecutionCount());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixKey;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns dense integer ids to keys in order of their appearance, so consumers can index flat arrays instead of maps.
+ * Keys are identified by name, ids are never reused or removed.
+ *
+ * @param <K> type of keys
+ */
+public final class HystrixKeyDictionary<K extends HystrixKey> {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile HystrixKey[] keys = new HystrixKey[16];
+    private volatile int size;
+
+    /**
+     * @return id of the key, assigned if the key is new
+     */
+    public int idOf(K key) {
+        Integer id = ids.get(key.name());
+        return id == null ? assign(key) : id;
+    }
+
+    /**
+     * @return id of the key or -1 if the key is unknown
+     */
+    public int getId(K key) {
+        Integer id = ids.get(key.name());
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return key with the given id or null if there is no such id
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey(int id) {
+        // size is published after the keys array, so the array read after the size always has room for the id
+        int currentSize = size;
+        HystrixKey[] current = keys;
+        return id >= 0 && id < currentSize ? (K) current[id] : null;
+    }
+
+    /**
+     * @return number of known keys, all ids are less than the size
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int assign(K key) {
+        Integer existing = ids.get(key.name());
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        HystrixKey[] current = keys;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, id * 2);
+        }
+        current[id] = key;
+        keys = current;
+        size = id + 1;
+        ids.put(key.name(), id);
+        return id;
+    }
+}
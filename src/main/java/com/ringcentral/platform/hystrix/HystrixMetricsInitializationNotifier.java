@@ -2,22 +2,27 @@ package com.ringcentral.platform.hystrix;
 
 import com.netflix.hystrix.*;
 import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisher;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherCollapser;
 import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherCommand;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Function;
 
 /**
- * Listener that notifies all the listeners about initialization of new command
+ * Listener that notifies all the listeners about initialization of new command, thread pool or collapser.
+ * While there are no listeners of a kind, a shared no-op publisher is returned and nothing is allocated.
  */
 public class HystrixMetricsInitializationNotifier extends HystrixMetricsPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(HystrixMetricsInitializationNotifier.class);
     private final List<HystrixMetricsInitializationListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<HystrixThreadPoolMetricsInitializationListener> threadPoolListeners = new CopyOnWriteArrayList<>();
+    private final List<HystrixCollapserMetricsInitializationListener> collapserListeners = new CopyOnWriteArrayList<>();
+    private final HystrixKeyDictionary<HystrixCommandKey> commandKeys = new HystrixKeyDictionary<>();
+    private final HystrixKeyDictionary<HystrixCommandGroupKey> commandGroupKeys = new HystrixKeyDictionary<>();
 
     @Override
     public HystrixMetricsPublisherCommand getMetricsPublisherForCommand(
@@ -26,19 +31,80 @@ public class HystrixMetricsInitializationNotifier extends HystrixMetricsPublishe
             HystrixCommandMetrics metrics,
             HystrixCircuitBreaker circuitBreaker,
             HystrixCommandProperties properties) {
-        log.debug("Notify {} listeners for command {} and group {}", listeners.size(),
-                safe(commandKey, HystrixKey::name, "null"),
-                safe(commandGroupKey, HystrixKey::name, "null"));
+        if (listeners.isEmpty()) {
+            return NoOpMetricsPublishers.COMMAND;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Notify {} listeners for command {} and group {}", listeners.size(), name(commandKey), name(commandGroupKey));
+        }
+        if (commandKey != null) {
+            commandKeys.idOf(commandKey);
+        }
+        if (commandGroupKey != null) {
+            commandGroupKeys.idOf(commandGroupKey);
+        }
         return () -> listeners.forEach(listener -> listener.initialize(metrics));
     }
 
+    @Override
+    public HystrixMetricsPublisherThreadPool getMetricsPublisherForThreadPool(
+            HystrixThreadPoolKey threadPoolKey,
+            HystrixThreadPoolMetrics metrics,
+            HystrixThreadPoolProperties properties) {
+        if (threadPoolListeners.isEmpty()) {
+            return NoOpMetricsPublishers.THREAD_POOL;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Notify {} listeners for thread pool {}", threadPoolListeners.size(), name(threadPoolKey));
+        }
+        return () -> threadPoolListeners.forEach(listener -> listener.initialize(metrics));
+    }
+
+    @Override
+    public HystrixMetricsPublisherCollapser getMetricsPublisherForCollapser(
+            HystrixCollapserKey collapserKey,
+            HystrixCollapserMetrics metrics,
+            HystrixCollapserProperties properties) {
+        if (collapserListeners.isEmpty()) {
+            return NoOpMetricsPublishers.COLLAPSER;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Notify {} listeners for collapser {}", collapserListeners.size(),
+                    collapserKey == null ? null : collapserKey.name());
+        }
+        return () -> collapserListeners.forEach(listener -> listener.initialize(metrics));
+    }
+
     public void addListener(HystrixMetricsInitializationListener listener) {
         log.debug("Adding listener to HystrixMetricsInitializationNotifier");
         listeners.add(listener);
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private <T, U> U safe(T object, Function<T, U> f, U defaultValue) {
-        return Optional.ofNullable(object).map(f).orElse(defaultValue);
+    public void addThreadPoolListener(HystrixThreadPoolMetricsInitializationListener listener) {
+        log.debug("Adding thread pool listener to HystrixMetricsInitializationNotifier");
+        threadPoolListeners.add(listener);
+    }
+
+    public void addCollapserListener(HystrixCollapserMetricsInitializationListener listener) {
+        log.debug("Adding collapser listener to HystrixMetricsInitializationNotifier");
+        collapserListeners.add(listener);
+    }
+
+    /**
+     * @return dense ids of command keys, assigned when listeners are first notified about the command
+     */
+    public HystrixKeyDictionary<HystrixCommandKey> getCommandKeyDictionary() {
+        return commandKeys;
+    }
+
+    /**
+     * @return dense ids of command group keys, assigned when listeners are first notified about the group
+     */
+    public HystrixKeyDictionary<HystrixCommandGroupKey> getCommandGroupKeyDictionary() {
+        return commandGroupKeys;
+    }
+
+    private static String name(HystrixKey key) {
+        return key == null ? null : key.name();
     }
 }
@@ -0,0 +1,188 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Converts effective properties of a command and its thread pool to strings and back to property defaults,
+ * so that a command warmed up from a saved {@link HystrixCommandDescriptor} gets the defaults it was created with in code.
+ * Forced states of the circuit breaker are operational overrides, they are never turned into defaults.
+ */
+final class HystrixPropertyDefaults {
+
+    private static final String COMMAND_PREFIX = "command.";
+    private static final String THREAD_POOL_PREFIX = "threadpool.";
+
+    private static final List<Property<HystrixCommandProperties, HystrixCommandProperties.Setter>> COMMAND_PROPERTIES = Arrays.asList(
+            booleanProperty(COMMAND_PREFIX + "circuitBreaker.enabled",
+                    HystrixCommandProperties::circuitBreakerEnabled,
+                    HystrixCommandProperties.Setter::withCircuitBreakerEnabled),
+            intProperty(COMMAND_PREFIX + "circuitBreaker.errorThresholdPercentage",
+                    HystrixCommandProperties::circuitBreakerErrorThresholdPercentage,
+                    HystrixCommandProperties.Setter::withCircuitBreakerErrorThresholdPercentage),
+            intProperty(COMMAND_PREFIX + "circuitBreaker.requestVolumeThreshold",
+                    HystrixCommandProperties::circuitBreakerRequestVolumeThreshold,
+                    HystrixCommandProperties.Setter::withCircuitBreakerRequestVolumeThreshold),
+            intProperty(COMMAND_PREFIX + "circuitBreaker.sleepWindowInMilliseconds",
+                    HystrixCommandProperties::circuitBreakerSleepWindowInMilliseconds,
+                    HystrixCommandProperties.Setter::withCircuitBreakerSleepWindowInMilliseconds),
+            new Property<>(COMMAND_PREFIX + "execution.isolation.strategy",
+                    HystrixCommandProperties::executionIsolationStrategy,
+                    (setter, value) -> setter.withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.valueOf(value))),
+            intProperty(COMMAND_PREFIX + "execution.isolation.semaphore.maxConcurrentRequests",
+                    HystrixCommandProperties::executionIsolationSemaphoreMaxConcurrentRequests,
+                    HystrixCommandProperties.Setter::withExecutionIsolationSemaphoreMaxConcurrentRequests),
+            booleanProperty(COMMAND_PREFIX + "execution.isolation.thread.interruptOnTimeout",
+                    HystrixCommandProperties::executionIsolationThreadInterruptOnTimeout,
+                    HystrixCommandProperties.Setter::withExecutionIsolationThreadInterruptOnTimeout),
+            booleanProperty(COMMAND_PREFIX + "execution.isolation.thread.interruptOnFutureCancel",
+                    HystrixCommandProperties::executionIsolationThreadInterruptOnFutureCancel,
+                    HystrixCommandProperties.Setter::withExecutionIsolationThreadInterruptOnFutureCancel),
+            intProperty(COMMAND_PREFIX + "execution.isolation.thread.timeoutInMilliseconds",
+                    HystrixCommandProperties::executionTimeoutInMilliseconds,
+                    HystrixCommandProperties.Setter::withExecutionTimeoutInMilliseconds),
+            booleanProperty(COMMAND_PREFIX + "execution.timeout.enabled",
+                    HystrixCommandProperties::executionTimeoutEnabled,
+                    HystrixCommandProperties.Setter::withExecutionTimeoutEnabled),
+            booleanProperty(COMMAND_PREFIX + "fallback.enabled",
+                    HystrixCommandProperties::fallbackEnabled,
+                    HystrixCommandProperties.Setter::withFallbackEnabled),
+            intProperty(COMMAND_PREFIX + "fallback.isolation.semaphore.maxConcurrentRequests",
+                    HystrixCommandProperties::fallbackIsolationSemaphoreMaxConcurrentRequests,
+                    HystrixCommandProperties.Setter::withFallbackIsolationSemaphoreMaxConcurrentRequests),
+            intProperty(COMMAND_PREFIX + "metrics.healthSnapshot.intervalInMilliseconds",
+                    HystrixCommandProperties::metricsHealthSnapshotIntervalInMilliseconds,
+                    HystrixCommandProperties.Setter::withMetricsHealthSnapshotIntervalInMilliseconds),
+            booleanProperty(COMMAND_PREFIX + "metrics.rollingPercentile.enabled",
+                    HystrixCommandProperties::metricsRollingPercentileEnabled,
+                    HystrixCommandProperties.Setter::withMetricsRollingPercentileEnabled),
+            intProperty(COMMAND_PREFIX + "metrics.rollingPercentile.timeInMilliseconds",
+                    HystrixCommandProperties::metricsRollingPercentileWindowInMilliseconds,
+                    HystrixCommandProperties.Setter::withMetricsRollingPercentileWindowInMilliseconds),
+            intProperty(COMMAND_PREFIX + "metrics.rollingPercentile.numBuckets",
+                    HystrixCommandProperties::metricsRollingPercentileWindowBuckets,
+                    HystrixCommandProperties.Setter::withMetricsRollingPercentileWindowBuckets),
+            intProperty(COMMAND_PREFIX + "metrics.rollingPercentile.bucketSize",
+                    HystrixCommandProperties::metricsRollingPercentileBucketSize,
+                    HystrixCommandProperties.Setter::withMetricsRollingPercentileBucketSize),
+            intProperty(COMMAND_PREFIX + "metrics.rollingStats.timeInMilliseconds",
+                    HystrixCommandProperties::metricsRollingStatisticalWindowInMilliseconds,
+                    HystrixCommandProperties.Setter::withMetricsRollingStatisticalWindowInMilliseconds),
+            intProperty(COMMAND_PREFIX + "metrics.rollingStats.numBuckets",
+                    HystrixCommandProperties::metricsRollingStatisticalWindowBuckets,
+                    HystrixCommandProperties.Setter::withMetricsRollingStatisticalWindowBuckets),
+            booleanProperty(COMMAND_PREFIX + "requestCache.enabled",
+                    HystrixCommandProperties::requestCacheEnabled,
+                    HystrixCommandProperties.Setter::withRequestCacheEnabled),
+            booleanProperty(COMMAND_PREFIX + "requestLog.enabled",
+                    HystrixCommandProperties::requestLogEnabled,
+                    HystrixCommandProperties.Setter::withRequestLogEnabled));
+
+    private static final List<Property<HystrixThreadPoolProperties, HystrixThreadPoolProperties.Setter>> THREAD_POOL_PROPERTIES = Arrays.asList(
+            intProperty(THREAD_POOL_PREFIX + "coreSize",
+                    HystrixThreadPoolProperties::coreSize,
+                    HystrixThreadPoolProperties.Setter::withCoreSize),
+            intProperty(THREAD_POOL_PREFIX + "keepAliveTimeMinutes",
+                    HystrixThreadPoolProperties::keepAliveTimeMinutes,
+                    HystrixThreadPoolProperties.Setter::withKeepAliveTimeMinutes),
+            intProperty(THREAD_POOL_PREFIX + "maxQueueSize",
+                    HystrixThreadPoolProperties::maxQueueSize,
+                    HystrixThreadPoolProperties.Setter::withMaxQueueSize),
+            intProperty(THREAD_POOL_PREFIX + "queueSizeRejectionThreshold",
+                    HystrixThreadPoolProperties::queueSizeRejectionThreshold,
+                    HystrixThreadPoolProperties.Setter::withQueueSizeRejectionThreshold),
+            intProperty(THREAD_POOL_PREFIX + "metrics.rollingStats.timeInMilliseconds",
+                    HystrixThreadPoolProperties::metricsRollingStatisticalWindowInMilliseconds,
+                    HystrixThreadPoolProperties.Setter::withMetricsRollingStatisticalWindowInMilliseconds),
+            intProperty(THREAD_POOL_PREFIX + "metrics.rollingStats.numBuckets",
+                    HystrixThreadPoolProperties::metricsRollingStatisticalWindowBuckets,
+                    HystrixThreadPoolProperties.Setter::withMetricsRollingStatisticalWindowBuckets));
+
+    private HystrixPropertyDefaults() {
+    }
+
+    /**
+     * Adds current values of command properties and, if given, of thread pool properties to the map
+     */
+    static void read(HystrixCommandProperties commandProperties, HystrixThreadPoolProperties threadPoolProperties,
+                     Map<String, String> result) {
+        read(COMMAND_PROPERTIES, commandProperties, result);
+        if (threadPoolProperties != null) {
+            read(THREAD_POOL_PROPERTIES, threadPoolProperties, result);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a value can't be parsed, unknown names are ignored
+     */
+    static HystrixCommandProperties.Setter toCommandDefaults(Map<String, String> values) {
+        return write(COMMAND_PROPERTIES, values, HystrixCommandProperties.Setter());
+    }
+
+    /**
+     * @throws IllegalArgumentException if a value can't be parsed, unknown names are ignored
+     */
+    static HystrixThreadPoolProperties.Setter toThreadPoolDefaults(Map<String, String> values) {
+        return write(THREAD_POOL_PROPERTIES, values, HystrixThreadPoolProperties.Setter());
+    }
+
+    private static <P> void read(List<? extends Property<P, ?>> properties, P source, Map<String, String> result) {
+        for (Property<P, ?> property : properties) {
+            Object value = property.getter.apply(source).get();
+            if (value != null) {
+                result.put(property.name, value.toString());
+            }
+        }
+    }
+
+    private static <S> S write(List<? extends Property<?, S>> properties, Map<String, String> values, S setter) {
+        S result = setter;
+        for (Property<?, S> property : properties) {
+            String value = values.get(property.name);
+            if (value != null) {
+                result = property.setter.apply(result, value);
+            }
+        }
+        return result;
+    }
+
+    private static <P, S> Property<P, S> intProperty(String name, Function<P, HystrixProperty<Integer>> getter,
+                                                     BiFunction<S, Integer, S> setter) {
+        return new Property<>(name, getter, (s, value) -> setter.apply(s, Integer.parseInt(value)));
+    }
+
+    private static <P, S> Property<P, S> booleanProperty(String name, Function<P, HystrixProperty<Boolean>> getter,
+                                                         BiFunction<S, Boolean, S> setter) {
+        return new Property<>(name, getter, (s, value) -> setter.apply(s, parseBoolean(value)));
+    }
+
+    private static boolean parseBoolean(String value) {
+        if ("true".equals(value)) {
+            return true;
+        }
+        if ("false".equals(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    private static final class Property<P, S> {
+
+        final String name;
+        final Function<P, ? extends HystrixProperty<?>> getter;
+        final BiFunction<S, String, S> setter;
+
+        Property(String name, Function<P, ? extends HystrixProperty<?>> getter, BiFunction<S, String, S> setter) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
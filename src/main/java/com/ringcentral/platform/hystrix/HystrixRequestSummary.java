@@ -0,0 +1,280 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixInvokableInfo;
+
+import java.util.Arrays;
+
+/**
+ * Summary of all commands invoked during one request, delivered by {@link HystrixRequestSummaryStream}.
+ * The same instance and its backing arrays are reused for every summary built on a thread,
+ * so the summary is valid only during the {@code onNext} call. Use {@link #copy()} to keep it.
+ * <p>
+ * Critical path latency is the time during which at least one command was executing, i.e. the length of the union
+ * of execution intervals. Commands that run in parallel count once, so the difference to the sum of execution latency shows
+ * how much of the work is parallel, while local work and idle gaps between commands are not counted.
+ */
+public final class HystrixRequestSummary {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private HystrixCommandKey[] commandKeys = new HystrixCommandKey[INITIAL_CAPACITY];
+    private int[] invocationCounts = new int[INITIAL_CAPACITY];
+    private int[] cacheHitCounts = new int[INITIAL_CAPACITY];
+    private int[] collapsedCounts = new int[INITIAL_CAPACITY];
+    private int[] failureCounts = new int[INITIAL_CAPACITY];
+    private long[] executionLatencySums = new long[INITIAL_CAPACITY];
+    /** starts and ends of executions in nanoseconds, sorted independently to measure their union **/
+    private long[] executionStarts = new long[INITIAL_CAPACITY];
+    private long[] executionEnds = new long[INITIAL_CAPACITY];
+    private int commandCount;
+    private int invocationCount;
+    private int cacheHitCount;
+    private int collapsedCount;
+    private int failureCount;
+    private long executionLatencySum;
+    private long criticalPathLatency;
+    private long weight;
+
+    HystrixRequestSummary() {
+    }
+
+    /**
+     * @return number of distinct commands invoked during the request
+     */
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    public HystrixCommandKey getCommandKey(int index) {
+        checkIndex(index);
+        return commandKeys[index];
+    }
+
+    /**
+     * @return number of invocations of the command, including the ones served from cache
+     */
+    public int getInvocationCount(int index) {
+        checkIndex(index);
+        return invocationCounts[index];
+    }
+
+    public int getCacheHitCount(int index) {
+        checkIndex(index);
+        return cacheHitCounts[index];
+    }
+
+    /**
+     * @return number of requests collapsed into batch invocations of the command
+     */
+    public int getCollapsedCount(int index) {
+        checkIndex(index);
+        return collapsedCounts[index];
+    }
+
+    /**
+     * @return number of invocations of the command that failed, timed out, were short-circuited or rejected
+     */
+    public int getFailureCount(int index) {
+        checkIndex(index);
+        return failureCounts[index];
+    }
+
+    public long getExecutionLatencySum(int index) {
+        checkIndex(index);
+        return executionLatencySums[index];
+    }
+
+    public int getInvocationCount() {
+        return invocationCount;
+    }
+
+    public int getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    public int getCollapsedCount() {
+        return collapsedCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return sum of execution latency of all commands in milliseconds
+     */
+    public long getExecutionLatencySum() {
+        return executionLatencySum;
+    }
+
+    /**
+     * @return milliseconds during which at least one command was executing
+     */
+    public long getCriticalPathLatency() {
+        return criticalPathLatency;
+    }
+
+    /**
+     * @return number of requests this summary stands for: itself and the requests sampled out before it,
+     * 1 for requests that are never sampled
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return copy that can be safely kept after the summary is reused
+     */
+    public HystrixRequestSummary copy() {
+        HystrixRequestSummary result = new HystrixRequestSummary();
+        result.commandKeys = Arrays.copyOf(commandKeys, commandCount);
+        result.invocationCounts = Arrays.copyOf(invocationCounts, commandCount);
+        result.cacheHitCounts = Arrays.copyOf(cacheHitCounts, commandCount);
+        result.collapsedCounts = Arrays.copyOf(collapsedCounts, commandCount);
+        result.failureCounts = Arrays.copyOf(failureCounts, commandCount);
+        result.executionLatencySums = Arrays.copyOf(executionLatencySums, commandCount);
+        result.commandCount = commandCount;
+        result.invocationCount = invocationCount;
+        result.cacheHitCount = cacheHitCount;
+        result.collapsedCount = collapsedCount;
+        result.failureCount = failureCount;
+        result.executionLatencySum = executionLatencySum;
+        result.criticalPathLatency = criticalPathLatency;
+        result.weight = weight;
+        return result;
+    }
+
+    void reset(long weight) {
+        Arrays.fill(commandKeys, 0, commandCount, null);
+        commandCount = 0;
+        invocationCount = 0;
+        cacheHitCount = 0;
+        collapsedCount = 0;
+        failureCount = 0;
+        executionLatencySum = 0;
+        criticalPathLatency = 0;
+        this.weight = weight;
+    }
+
+    /**
+     * Adds invocations of the request, the summary is reset before
+     */
+    void summarize(Iterable<HystrixInvokableInfo<?>> invocations) {
+        int executionCount = 0;
+        for (HystrixInvokableInfo<?> invocation : invocations) {
+            int index = indexOf(invocation.getCommandKey());
+            invocationCounts[index]++;
+            invocationCount++;
+            if (invocation.isResponseFromCache()) {
+                cacheHitCounts[index]++;
+                cacheHitCount++;
+            }
+            int collapsed = invocation.getNumberCollapsed();
+            collapsedCounts[index] += collapsed;
+            collapsedCount += collapsed;
+            if (isFailure(invocation)) {
+                failureCounts[index]++;
+                failureCount++;
+            }
+            int executionLatency = invocation.getExecutionTimeInMilliseconds();
+            long start = invocation.getCommandRunStartTimeInNanos();
+            if (executionLatency >= 0) {
+                executionLatencySums[index] += executionLatency;
+                executionLatencySum += executionLatency;
+                if (start >= 0) {
+                    if (executionCount == executionStarts.length) {
+                        executionStarts = Arrays.copyOf(executionStarts, executionCount * 2);
+                        executionEnds = Arrays.copyOf(executionEnds, executionCount * 2);
+                    }
+                    executionStarts[executionCount] = start;
+                    executionEnds[executionCount] = start + executionLatency * 1_000_000L;
+                    executionCount++;
+                }
+            }
+        }
+        criticalPathLatency = unionLength(executionStarts, executionEnds, executionCount) / 1_000_000L;
+    }
+
+    /**
+     * Sweeps over starts and ends sorted independently: the union grows while more intervals have started than ended.
+     * This gives the same length as merging overlapping intervals sorted by start, without sorting pairs.
+     */
+    static long unionLength(long[] starts, long[] ends, int count) {
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+        long result = 0;
+        long unionStart = 0;
+        int active = 0;
+        int i = 0;
+        for (int j = 0; j < count; j++) {
+            // starts go before ends at the same time, so touching intervals are merged
+            while (i < count && starts[i] <= ends[j]) {
+                if (active++ == 0) {
+                    unionStart = starts[i];
+                }
+                i++;
+            }
+            if (--active == 0) {
+                result += ends[j] - unionStart;
+            }
+        }
+        return result;
+    }
+
+    static boolean isFailure(HystrixInvokableInfo<?> invocation) {
+        return invocation.isFailedExecution() || invocation.isResponseTimedOut()
+                || invocation.isResponseShortCircuited() || invocation.isResponseRejected();
+    }
+
+    private int indexOf(HystrixCommandKey key) {
+        // requests invoke few distinct commands, so a linear search is cheaper than hashing
+        for (int i = 0; i < commandCount; i++) {
+            if (commandKeys[i] == key) {
+                return i;
+            }
+        }
+        if (commandCount == commandKeys.length) {
+            int capacity = commandKeys.length * 2;
+            commandKeys = Arrays.copyOf(commandKeys, capacity);
+            invocationCounts = Arrays.copyOf(invocationCounts, capacity);
+            cacheHitCounts = Arrays.copyOf(cacheHitCounts, capacity);
+            collapsedCounts = Arrays.copyOf(collapsedCounts, capacity);
+            failureCounts = Arrays.copyOf(failureCounts, capacity);
+            executionLatencySums = Arrays.copyOf(executionLatencySums, capacity);
+        }
+        int index = commandCount++;
+        commandKeys[index] = key;
+        invocationCounts[index] = 0;
+        cacheHitCounts[index] = 0;
+        collapsedCounts[index] = 0;
+        failureCounts[index] = 0;
+        executionLatencySums[index] = 0;
+        return index;
+    }
+
+    private void checkIndex(int index) {
+        if (index >= commandCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + commandCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("HystrixRequestSummary{invocations=").append(invocationCount)
+                .append(", cacheHits=").append(cacheHitCount)
+                .append(", collapsed=").append(collapsedCount)
+                .append(", failures=").append(failureCount)
+                .append(", executionLatencySum=").append(executionLatencySum)
+                .append(", criticalPathLatency=").append(criticalPathLatency)
+                .append(", weight=").append(weight)
+                .append(", commands=[");
+        for (int i = 0; i < commandCount; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(commandKeys[i].name()).append('x').append(invocationCounts[i]);
+        }
+        return result.append("]}").toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixInvokableInfo;
+import com.netflix.hystrix.metric.HystrixRequestEvents;
+import com.netflix.hystrix.metric.HystrixRequestEventsStream;
+import rx.Observable;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rx-Java stream of {@link HystrixRequestSummary} built from {@link HystrixRequestEventsStream}, which Hystrix writes
+ * the request log to when a request context is shut down. Unlike command completions, a summary shows which commands
+ * were invoked together by one request, so it can be used to find fan-out and caching opportunities without tracing.
+ * <p>
+ * Only a sample of requests is summarized, but requests with failed, timed out, short-circuited or rejected commands are always included.
+ * A summarized request is weighted by the number of requests sampled out before it, so weighted totals stay unbiased for any rate.
+ * Summaries are pooled per thread and delivered to all subscribers from one shared subscription to the source.
+ */
+public class HystrixRequestSummaryStream {
+
+    private final double sampleRate;
+    private final LongAdder sampledOut = new LongAdder();
+    /** requests sampled out since the last summarized one, carried into its weight so weighted totals are unbiased **/
+    private final AtomicLong skipped = new AtomicLong();
+    private final ThreadLocal<HystrixRequestSummary> summaries = ThreadLocal.withInitial(HystrixRequestSummary::new);
+    private final Observable<HystrixRequestSummary> stream;
+
+    public HystrixRequestSummaryStream(double sampleRate) {
+        this(HystrixRequestEventsStream.getInstance(), sampleRate);
+    }
+
+    /**
+     * @param sampleRate share of requests without failures that are summarized, from 0 to 1
+     */
+    public HystrixRequestSummaryStream(HystrixRequestEventsStream source, double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be from 0 to 1");
+        }
+        this.sampleRate = sampleRate;
+        this.stream = source.observe()
+                .map(this::summarize)
+                .filter(summary -> summary != null)
+                .share();
+    }
+
+    public Observable<HystrixRequestSummary> observe() {
+        return stream;
+    }
+
+    /**
+     * @return number of requests that were not summarized
+     */
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    private HystrixRequestSummary summarize(HystrixRequestEvents request) {
+        Collection<HystrixInvokableInfo<?>> invocations = request.getExecutions();
+        long summaryWeight = 1;
+        if (sampleRate < 1 && !hasFailures(invocations)) {
+            if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                sampledOut.increment();
+                skipped.incrementAndGet();
+                return null;
+            }
+            summaryWeight = 1 + skipped.getAndSet(0);
+        }
+        HystrixRequestSummary summary = summaries.get();
+        summary.reset(summaryWeight);
+        summary.summarize(invocations);
+        return summary;
+    }
+
+    private static boolean hasFailures(Collection<HystrixInvokableInfo<?>> invocations) {
+        for (HystrixInvokableInfo<?> invocation : invocations) {
+            if (HystrixRequestSummary.isFailure(invocation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers every command whose metrics were initialized, so the commands seen on the last run
+ * can be saved on shutdown and warmed up with {@link HystrixWarmUp} on the next start.
+ * Effective properties of the command and its thread pool are recorded too, so the warm-up gives the command the
+ * same properties even if they are set in code: Hystrix caches properties when a command is initialized,
+ * so a warm-up without them would pin the command to the defaults of Hystrix.
+ * Commands are saved as lines of tab separated group, command and thread pool names followed by {@code name=value} properties.
+ */
+public class HystrixSeenCommands implements HystrixMetricsInitializationListener {
+
+    private final Set<HystrixCommandDescriptor> commands = ConcurrentHashMap.newKeySet();
+
+    public HystrixSeenCommands(HystrixMetricsInitializationNotifier notifier) {
+        notifier.addListener(this);
+        HystrixCommandMetrics.getInstances().forEach(this::initialize);
+    }
+
+    @Override
+    public void initialize(HystrixCommandMetrics metrics) {
+        // the thread pool is created before the metrics publisher of the command is called
+        HystrixThreadPoolMetrics threadPoolMetrics = HystrixThreadPoolMetrics.getInstance(metrics.getThreadPoolKey());
+        HystrixThreadPoolProperties threadPoolProperties = threadPoolMetrics != null
+                ? threadPoolMetrics.getProperties() : HystrixPropertiesFactory.getThreadPoolProperties(metrics.getThreadPoolKey(), null);
+        Map<String, String> properties = new LinkedHashMap<>();
+        HystrixPropertyDefaults.read(metrics.getProperties(), threadPoolProperties, properties);
+        commands.add(new HystrixCommandDescriptor(metrics.getCommandGroup(), metrics.getCommandKey(), metrics.getThreadPoolKey(), properties));
+    }
+
+    public Set<HystrixCommandDescriptor> getCommands() {
+        return Collections.unmodifiableSet(commands);
+    }
+
+    /**
+     * Writes seen commands to the file, the file is replaced atomically so a crash never leaves it truncated
+     */
+    public void save(Path file) throws IOException {
+        save(file, commands);
+    }
+
+    public static void save(Path file, Collection<HystrixCommandDescriptor> commands) throws IOException {
+        List<String> lines = new ArrayList<>(commands.size());
+        StringBuilder line = new StringBuilder();
+        for (HystrixCommandDescriptor command : commands) {
+            line.setLength(0);
+            line.append(command.getGroupKey().name()).append('\t')
+                    .append(command.getCommandKey().name()).append('\t')
+                    .append(command.getThreadPoolKey().name());
+            for (Map.Entry<String, String> property : command.getProperties().entrySet()) {
+                line.append('\t').append(property.getKey()).append('=').append(property.getValue());
+            }
+            lines.add(line.toString());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return commands saved to the file, or nothing if the file doesn't exist.
+     * Files without properties are accepted, their commands take properties from configuration only
+     */
+    public static List<HystrixCommandDescriptor> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        List<HystrixCommandDescriptor> result = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length < 3) {
+                throw new IOException("Malformed line in " + file + ": " + line);
+            }
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (int i = 3; i < fields.length; i++) {
+                int separator = fields[i].indexOf('=');
+                if (separator <= 0) {
+                    throw new IOException("Malformed property in " + file + ": " + line);
+                }
+                properties.put(fields[i].substring(0, separator), fields[i].substring(separator + 1));
+            }
+            HystrixCommandDescriptor command = new HystrixCommandDescriptor(HystrixCommandGroupKey.Factory.asKey(fields[0]),
+                    HystrixCommandKey.Factory.asKey(fields[1]),
+                    HystrixThreadPoolKey.Factory.asKey(fields[2]),
+                    properties);
+            try {
+                command.toSetter();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed property in " + file + ": " + line, e);
+            }
+            result.add(command);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,8 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+
+public interface HystrixThreadPoolMetricsInitializationListener {
+
+    void initialize(HystrixThreadPoolMetrics metrics);
+}
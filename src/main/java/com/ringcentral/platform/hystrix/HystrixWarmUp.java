@@ -0,0 +1,85 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Initializes commands before they are executed for the first time, so that production traffic doesn't pay for
+ * creation of metrics, circuit breakers, thread pools and metrics publishers, including listeners of
+ * {@link HystrixMetricsInitializationNotifier} such as the aggregated streams.
+ * Hystrix has no public API to create a thread pool, so every command is initialized by constructing
+ * a command instance that is never executed.
+ * <p>
+ * Properties of a command are cached by Hystrix when the command is initialized, so commands that set
+ * property defaults in code must be warmed up with the same {@link HystrixCommand.Setter} they are created with,
+ * or with {@link HystrixCommandDescriptor#toSetter()} of a descriptor recorded by {@link HystrixSeenCommands}.
+ */
+public class HystrixWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixWarmUp.class);
+
+    private final Executor executor;
+
+    /**
+     * @param executor commands are initialized in parallel on the executor
+     */
+    public HystrixWarmUp(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return future completed with the number of commands initialized successfully when all commands are processed,
+     * commands that failed to initialize are logged
+     */
+    public CompletableFuture<Integer> warmUp(Collection<HystrixCommand.Setter> commands) {
+        AtomicInteger initialized = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[commands.size()];
+        int i = 0;
+        for (HystrixCommand.Setter setter : commands) {
+            futures[i++] = CompletableFuture.runAsync(() -> {
+                if (initialize(setter)) {
+                    initialized.incrementAndGet();
+                }
+            }, executor);
+        }
+        return CompletableFuture.allOf(futures).thenApply(v -> initialized.get());
+    }
+
+    private static boolean initialize(HystrixCommand.Setter setter) {
+        // the command looks up the request log of the current request when it is created,
+        // a context of the caller is reused so it isn't replaced or shut down by the warm-up
+        HystrixRequestContext context = HystrixRequestContext.isCurrentThreadInitialized()
+                ? null : HystrixRequestContext.initializeContext();
+        try {
+            WarmUpCommand command = new WarmUpCommand(setter);
+            log.debug("Warmed up {}", command.getCommandKey().name());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to warm up command", e);
+            return false;
+        } finally {
+            if (context != null) {
+                context.shutdown();
+            }
+        }
+    }
+
+    private static final class WarmUpCommand extends HystrixCommand<Void> {
+
+        WarmUpCommand(Setter setter) {
+            super(setter);
+        }
+
+        @Override
+        protected Void run() {
+            throw new UnsupportedOperationException("Warm up command is never executed");
+        }
+    }
+}
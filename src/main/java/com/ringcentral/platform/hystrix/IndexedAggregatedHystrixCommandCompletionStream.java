@@ -0,0 +1,49 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+
+import java.util.function.Predicate;
+
+/**
+ * Variant of {@link AggregatedHystrixCommandCompletionStream} that emits every completion with dense ids of its command and group keys.
+ * Ids are resolved once per command when its stream is added, so consumers can index flat arrays without hashing per event.
+ */
+public class IndexedAggregatedHystrixCommandCompletionStream
+        extends AbstractAggregatedHystrixEventStream<HystrixCommandMetrics, IndexedHystrixCommandCompletion>
+        implements HystrixMetricsInitializationListener {
+
+    private final HystrixMetricsInitializationNotifier notifier;
+
+    public IndexedAggregatedHystrixCommandCompletionStream(HystrixMetricsInitializationNotifier notifier,
+                                                           Predicate<HystrixCommandMetrics> filter) {
+        super(filter);
+        this.notifier = notifier;
+        notifier.addListener(this);
+        HystrixCommandMetrics.getInstances().forEach(this::initialize);
+    }
+
+    @Override
+    public void initialize(HystrixCommandMetrics metrics) {
+        final HystrixCommandKey key = metrics.getCommandKey();
+        final int commandKeyId = notifier.getCommandKeyDictionary().idOf(key);
+        final int commandGroupKeyId = notifier.getCommandGroupKeyDictionary().idOf(metrics.getCommandGroup());
+        aggregate(metrics, key.name(), () -> HystrixCommandCompletionStream.getInstance(key).observe()
+                .map(completion -> new IndexedHystrixCommandCompletion(completion, commandKeyId, commandGroupKeyId)));
+    }
+
+    /**
+     * Attaches events of the command regardless of the filter
+     */
+    public boolean attach(HystrixCommandKey key) {
+        return attach(key.name());
+    }
+
+    /**
+     * Detaches events of the command until it is attached again explicitly or by a new filter
+     */
+    public boolean detach(HystrixCommandKey key) {
+        return detach(key.name());
+    }
+}
@@ -0,0 +1,41 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEvent;
+
+/**
+ * Command completion together with dense ids of its command and group keys
+ *
+ * @see HystrixMetricsInitializationNotifier#getCommandKeyDictionary()
+ * @see HystrixMetricsInitializationNotifier#getCommandGroupKeyDictionary()
+ */
+public final class IndexedHystrixCommandCompletion implements HystrixEvent {
+
+    private final HystrixCommandCompletion completion;
+    private final int commandKeyId;
+    private final int commandGroupKeyId;
+
+    IndexedHystrixCommandCompletion(HystrixCommandCompletion completion, int commandKeyId, int commandGroupKeyId) {
+        this.completion = completion;
+        this.commandKeyId = commandKeyId;
+        this.commandGroupKeyId = commandGroupKeyId;
+    }
+
+    public HystrixCommandCompletion getCompletion() {
+        return completion;
+    }
+
+    public int getCommandKeyId() {
+        return commandKeyId;
+    }
+
+    public int getCommandGroupKeyId() {
+        return commandGroupKeyId;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedHystrixCommandCompletion{commandKeyId=" + commandKeyId + ", commandGroupKeyId=" + commandGroupKeyId
+                + ", completion=" + completion + '}';
+    }
+}
@@ -0,0 +1,110 @@
+package com.ringcentral.platform.hystrix;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free rolling latency histogram with log-linear buckets.
+ * Every power of two is split into {@link #SUB_BUCKETS} linear sub-buckets, so relative error of any reported value is below 12.5%.
+ * Recording never allocates: counters are preallocated per window and striped by thread to reduce contention,
+ * a window is cleared once when it becomes current again.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SHIFT = 20;
+    /** values above ~2^24 milliseconds are recorded into the last bucket **/
+    static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+    private final Window[] windows;
+    private final long windowLengthInMillis;
+    private final int stripes;
+    private final LongSupplier clock;
+
+    public LatencyHistogram(int windowCount, long windowLengthInMillis, int stripes) {
+        this(windowCount, windowLengthInMillis, stripes, System::currentTimeMillis);
+    }
+
+    LatencyHistogram(int windowCount, long windowLengthInMillis, int stripes, LongSupplier clock) {
+        if (windowCount < 1 || windowLengthInMillis < 1 || stripes < 1) {
+            throw new IllegalArgumentException("windowCount, windowLengthInMillis and stripes must be positive");
+        }
+        this.windowLengthInMillis = windowLengthInMillis;
+        this.stripes = stripes;
+        this.clock = clock;
+        this.windows = new Window[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            windows[i] = new Window(stripes * BUCKETS);
+        }
+    }
+
+    public void record(long value) {
+        long epoch = clock.getAsLong() / windowLengthInMillis;
+        Window window = windows[(int) (epoch % windows.length)];
+        if (window.epoch < epoch) {
+            window.rotate(epoch);
+        }
+        int stripe = (int) (Thread.currentThread().getId() % stripes);
+        window.counts.incrementAndGet(stripe * BUCKETS + bucketIndex(value));
+    }
+
+    /**
+     * @return counts of all windows that belong to the rolling period, merged together
+     */
+    public LatencyHistogramSnapshot snapshot() {
+        long epoch = clock.getAsLong() / windowLengthInMillis;
+        long[] counts = new long[BUCKETS];
+        for (Window window : windows) {
+            long windowEpoch = window.epoch;
+            if (windowEpoch > epoch - windows.length && windowEpoch <= epoch) {
+                for (int i = 0; i < stripes * BUCKETS; i++) {
+                    counts[i % BUCKETS] += window.counts.get(i);
+                }
+            }
+        }
+        return new LatencyHistogramSnapshot(counts);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return the highest value that is recorded into the bucket
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    private static final class Window {
+
+        private final AtomicIntegerArray counts;
+        private volatile long epoch = -1;
+
+        Window(int size) {
+            this.counts = new AtomicIntegerArray(size);
+        }
+
+        synchronized void rotate(long newEpoch) {
+            if (epoch < newEpoch) {
+                for (int i = 0; i < counts.length(); i++) {
+                    counts.set(i, 0);
+                }
+                epoch = newEpoch;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ringcentral.platform.hystrix;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of {@link LatencyHistogram} counts. Snapshots of different histograms can be merged,
+ * e.g. to get latency distribution across all commands.
+ */
+public final class LatencyHistogramSnapshot {
+
+    public static final LatencyHistogramSnapshot EMPTY = new LatencyHistogramSnapshot(new long[LatencyHistogram.BUCKETS]);
+
+    private final long[] counts;
+    private final long totalCount;
+
+    LatencyHistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.totalCount = total;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile percentile in range [0, 100]
+     * @return the highest value equivalent to the value at the given percentile or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= threshold) {
+                return LatencyHistogram.bucketUpperBound(i);
+            }
+        }
+        return LatencyHistogram.bucketUpperBound(counts.length - 1);
+    }
+
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return LatencyHistogram.bucketUpperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    public LatencyHistogramSnapshot merge(LatencyHistogramSnapshot other) {
+        if (other.totalCount == 0) {
+            return this;
+        }
+        if (totalCount == 0) {
+            return other;
+        }
+        long[] merged = Arrays.copyOf(counts, counts.length);
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] += other.counts[i];
+        }
+        return new LatencyHistogramSnapshot(merged);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogramSnapshot{" +
+                "count=" + totalCount +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", p99.9=" + getValueAtPercentile(99.9) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
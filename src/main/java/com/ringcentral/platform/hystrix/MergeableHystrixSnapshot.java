@@ -0,0 +1,323 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixEventType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable counts and latency histograms of commands, keyed by command name, collected during an interval.
+ * Snapshots of different intervals or nodes are combined with {@link #merge(MergeableHystrixSnapshot)},
+ * which is associative and commutative, so they can be merged in any order and grouping.
+ * {@link #toBytes()} encodes the snapshot sparsely: only non-zero counts and buckets are written as variable-length integers.
+ * Event types are not identified by ordinals of the local enum: every snapshot starts with a table of the event types it uses,
+ * written as codes of a table owned by this class or, for types missing from it, as names. So nodes running different versions
+ * of hystrix-core decode the counts correctly, counts of event types unknown to the decoding node are dropped.
+ */
+public final class MergeableHystrixSnapshot {
+
+    /** identity of merge **/
+    public static final MergeableHystrixSnapshot EMPTY =
+            new MergeableHystrixSnapshot(Long.MAX_VALUE, Long.MIN_VALUE, Collections.emptySortedMap());
+
+    /** the first version indexed event counts by ordinals of the local {@link HystrixEventType} **/
+    private static final int VERSION_WITH_ORDINALS = 1;
+    private static final int VERSION = 2;
+    /**
+     * Names of event types by their code, the code is the index plus one, zero means that the name follows.
+     * Codes are part of the format: new event types may only be appended.
+     */
+    private static final String[] EVENT_TYPE_CODES = {
+            "EMIT", "SUCCESS", "FAILURE", "TIMEOUT", "BAD_REQUEST", "SHORT_CIRCUITED", "THREAD_POOL_REJECTED",
+            "SEMAPHORE_REJECTED", "FALLBACK_EMIT", "FALLBACK_SUCCESS", "FALLBACK_FAILURE", "FALLBACK_REJECTION",
+            "FALLBACK_MISSING", "EXCEPTION_THROWN", "RESPONSE_FROM_CACHE", "CANCELLED", "COLLAPSED"};
+    private static final HystrixEventType[] EVENT_TYPES = HystrixEventType.values();
+    private static final Map<String, HystrixEventType> EVENT_TYPES_BY_NAME = new HashMap<>();
+    /** codes of local event types by ordinal, zero for types missing from the table **/
+    private static final int[] CODES = new int[EVENT_TYPES.length];
+
+    static {
+        for (HystrixEventType eventType : EVENT_TYPES) {
+            EVENT_TYPES_BY_NAME.put(eventType.name(), eventType);
+        }
+        for (int i = 0; i < EVENT_TYPE_CODES.length; i++) {
+            HystrixEventType eventType = EVENT_TYPES_BY_NAME.get(EVENT_TYPE_CODES[i]);
+            if (eventType != null) {
+                CODES[eventType.ordinal()] = i + 1;
+            }
+        }
+    }
+
+    private final long intervalStart;
+    private final long intervalEnd;
+    private final SortedMap<String, HystrixCommandSnapshot> commands;
+
+    MergeableHystrixSnapshot(long intervalStart, long intervalEnd, SortedMap<String, HystrixCommandSnapshot> commands) {
+        this.intervalStart = intervalStart;
+        this.intervalEnd = intervalEnd;
+        this.commands = Collections.unmodifiableSortedMap(commands);
+    }
+
+    /**
+     * @return the earliest start of merged intervals in milliseconds
+     */
+    public long getIntervalStart() {
+        return intervalStart;
+    }
+
+    /**
+     * @return the latest end of merged intervals in milliseconds
+     */
+    public long getIntervalEnd() {
+        return intervalEnd;
+    }
+
+    /**
+     * @return snapshots of commands ordered by command name
+     */
+    public SortedMap<String, HystrixCommandSnapshot> getCommands() {
+        return commands;
+    }
+
+    public MergeableHystrixSnapshot merge(MergeableHystrixSnapshot other) {
+        if (other == EMPTY) {
+            return this;
+        }
+        if (this == EMPTY) {
+            return other;
+        }
+        SortedMap<String, HystrixCommandSnapshot> merged = new TreeMap<>(commands);
+        other.commands.forEach((name, command) -> merged.merge(name, command, HystrixCommandSnapshot::merge));
+        return new MergeableHystrixSnapshot(Math.min(intervalStart, other.intervalStart),
+                Math.max(intervalEnd, other.intervalEnd), merged);
+    }
+
+    public byte[] toBytes() {
+        Encoder encoder = new Encoder();
+        encoder.writeLong(VERSION);
+        encoder.writeLong(intervalStart);
+        encoder.writeLong(intervalEnd);
+        // only event types that occurred are written to the table
+        boolean[] used = new boolean[EVENT_TYPES.length];
+        int usedCount = 0;
+        for (HystrixCommandSnapshot command : commands.values()) {
+            long[] eventCounts = command.eventCounts();
+            for (int i = 0; i < eventCounts.length; i++) {
+                if (eventCounts[i] != 0 && !used[i]) {
+                    used[i] = true;
+                    usedCount++;
+                }
+            }
+        }
+        int[] ordinals = new int[usedCount];
+        encoder.writeLong(usedCount);
+        for (int i = 0, j = 0; i < used.length; i++) {
+            if (used[i]) {
+                ordinals[j++] = i;
+                encoder.writeLong(CODES[i]);
+                if (CODES[i] == 0) {
+                    encoder.writeString(EVENT_TYPES[i].name());
+                }
+            }
+        }
+        encoder.writeLong(commands.size());
+        long[] eventCounts = new long[usedCount];
+        for (Map.Entry<String, HystrixCommandSnapshot> entry : commands.entrySet()) {
+            encoder.writeString(entry.getKey());
+            HystrixCommandSnapshot command = entry.getValue();
+            for (int i = 0; i < ordinals.length; i++) {
+                eventCounts[i] = command.eventCounts()[ordinals[i]];
+            }
+            encoder.writeSparse(eventCounts);
+            encoder.writeSparse(command.executionLatency());
+            encoder.writeSparse(command.totalLatency());
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decodes snapshots of the current version and of the first version, which is decoded as if it came from a node
+     * with the same version of hystrix-core
+     *
+     * @throws IllegalArgumentException if the bytes are not an encoded snapshot
+     */
+    public static MergeableHystrixSnapshot fromBytes(byte[] bytes) {
+        Decoder decoder = new Decoder(bytes);
+        long version = decoder.readLong();
+        if (version != VERSION && version != VERSION_WITH_ORDINALS) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + version);
+        }
+        long intervalStart = decoder.readLong();
+        long intervalEnd = decoder.readLong();
+        int[] ordinals;
+        if (version == VERSION_WITH_ORDINALS) {
+            ordinals = new int[EVENT_TYPES.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = i;
+            }
+        } else {
+            // every event type takes at least one byte
+            ordinals = new int[decoder.readLength(bytes.length - decoder.position)];
+            for (int i = 0; i < ordinals.length; i++) {
+                long code = decoder.readLong();
+                String name;
+                if (code == 0) {
+                    name = decoder.readString();
+                } else {
+                    // codes appended by newer versions are unknown here
+                    name = code <= EVENT_TYPE_CODES.length ? EVENT_TYPE_CODES[(int) code - 1] : null;
+                }
+                HystrixEventType eventType = name == null ? null : EVENT_TYPES_BY_NAME.get(name);
+                ordinals[i] = eventType == null ? -1 : eventType.ordinal();
+            }
+        }
+        int commandCount = decoder.readLength(Integer.MAX_VALUE);
+        SortedMap<String, HystrixCommandSnapshot> commands = new TreeMap<>();
+        for (int i = 0; i < commandCount; i++) {
+            String name = decoder.readString();
+            long[] encodedCounts = decoder.readSparse(ordinals.length);
+            long[] eventCounts = new long[HystrixCommandSnapshot.EVENT_TYPE_COUNT];
+            for (int j = 0; j < ordinals.length; j++) {
+                if (ordinals[j] >= 0) {
+                    eventCounts[ordinals[j]] += encodedCounts[j];
+                }
+            }
+            commands.put(name, new HystrixCommandSnapshot(
+                    eventCounts,
+                    decoder.readSparse(LatencyHistogram.BUCKETS),
+                    decoder.readSparse(LatencyHistogram.BUCKETS)));
+        }
+        if (decoder.position != bytes.length) {
+            throw new IllegalArgumentException("Unexpected bytes after snapshot");
+        }
+        return commands.isEmpty() && intervalStart == EMPTY.intervalStart && intervalEnd == EMPTY.intervalEnd
+                ? EMPTY : new MergeableHystrixSnapshot(intervalStart, intervalEnd, commands);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MergeableHystrixSnapshot)) {
+            return false;
+        }
+        MergeableHystrixSnapshot other = (MergeableHystrixSnapshot) o;
+        return intervalStart == other.intervalStart && intervalEnd == other.intervalEnd && commands.equals(other.commands);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(intervalStart) + Long.hashCode(intervalEnd)) + commands.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MergeableHystrixSnapshot{intervalStart=" + intervalStart + ", intervalEnd=" + intervalEnd
+                + ", commands=" + commands.keySet() + '}';
+    }
+
+    private static final class Encoder extends ByteArrayOutputStream {
+
+        Encoder() {
+            super(256);
+        }
+
+        /**
+         * Writes the value as unsigned base-128 variable-length integer
+         */
+        void writeLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        /**
+         * Writes number of non-zero values followed by pairs of index delta and value
+         */
+        void writeSparse(long[] values) {
+            int nonZero = 0;
+            for (long value : values) {
+                if (value != 0) {
+                    nonZero++;
+                }
+            }
+            writeLong(nonZero);
+            int previous = -1;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != 0) {
+                    writeLong(i - previous);
+                    writeLong(values[i]);
+                    previous = i;
+                }
+            }
+        }
+    }
+
+    private static final class Decoder {
+
+        private final byte[] bytes;
+        private int position;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IllegalArgumentException("Snapshot is truncated");
+                }
+                byte b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable-length integer at " + position);
+        }
+
+        int readLength(int max) {
+            long length = readLong();
+            if (length < 0 || length > max) {
+                throw new IllegalArgumentException("Malformed length " + length + " at " + position);
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength(bytes.length - position);
+            String result = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+
+        long[] readSparse(int size) {
+            long[] result = new long[size];
+            int nonZero = readLength(size);
+            int index = -1;
+            for (int i = 0; i < nonZero; i++) {
+                index += readLength(size);
+                if (index >= size) {
+                    throw new IllegalArgumentException("Index " + index + " is out of " + size);
+                }
+                result[index] = readLong();
+            }
+            return result;
+        }
+    }
+}
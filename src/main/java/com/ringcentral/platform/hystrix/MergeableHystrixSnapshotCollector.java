@@ -0,0 +1,38 @@
+package com.ringcentral.platform.hystrix;
+
+/**
+ * In-process collector that merges snapshots received from any number of nodes
+ */
+public class MergeableHystrixSnapshotCollector {
+
+    private MergeableHystrixSnapshot snapshot = MergeableHystrixSnapshot.EMPTY;
+
+    /**
+     * Merges encoded snapshot
+     *
+     * @throws IllegalArgumentException if the bytes are not an encoded snapshot
+     */
+    public void accept(byte[] bytes) {
+        accept(MergeableHystrixSnapshot.fromBytes(bytes));
+    }
+
+    public synchronized void accept(MergeableHystrixSnapshot other) {
+        snapshot = snapshot.merge(other);
+    }
+
+    /**
+     * @return merge of all snapshots accepted since creation or the last {@link #drain()}
+     */
+    public synchronized MergeableHystrixSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return merge of all accepted snapshots and starts collection from scratch
+     */
+    public synchronized MergeableHystrixSnapshot drain() {
+        MergeableHystrixSnapshot result = snapshot;
+        snapshot = MergeableHystrixSnapshot.EMPTY;
+        return result;
+    }
+}
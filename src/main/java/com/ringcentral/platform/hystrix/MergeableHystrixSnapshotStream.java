@@ -0,0 +1,142 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reduces completions of the source stream into per-command counters and latency histograms
+ * and publishes them as {@link MergeableHystrixSnapshot} on a fixed interval.
+ * Commands without completions during the interval are not included, so idle commands cost nothing on the wire.
+ * All subscribers share one subscription to the source stream.
+ */
+public class MergeableHystrixSnapshotStream {
+
+    private static final Logger log = LoggerFactory.getLogger(MergeableHystrixSnapshotStream.class);
+    private static final HystrixEventType[] EVENT_TYPES = HystrixEventType.values();
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Observable<MergeableHystrixSnapshot> snapshots;
+    private volatile long intervalStart = System.currentTimeMillis();
+
+    public MergeableHystrixSnapshotStream(HystrixEventStream<HystrixCommandCompletion> source, long interval, TimeUnit unit) {
+        this(source, interval, unit, Schedulers.computation());
+    }
+
+    public MergeableHystrixSnapshotStream(HystrixEventStream<HystrixCommandCompletion> source, long interval, TimeUnit unit,
+                                          Scheduler scheduler) {
+        snapshots = Observable.using(
+                () -> subscribe(source),
+                s -> Observable.interval(interval, interval, unit, scheduler).map(tick -> snapshot()),
+                Subscription::unsubscribe)
+                .share();
+    }
+
+    public Observable<MergeableHystrixSnapshot> observe() {
+        return snapshots;
+    }
+
+    private Subscription subscribe(HystrixEventStream<HystrixCommandCompletion> source) {
+        log.debug("Start collection of mergeable snapshots");
+        intervalStart = System.currentTimeMillis();
+        return source.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        String name = completion.getCommandKey().name();
+        Bucket bucket = buckets.get(name);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(name, k -> new Bucket());
+        }
+        bucket.record(completion);
+    }
+
+    private MergeableHystrixSnapshot snapshot() {
+        long start = intervalStart;
+        long end = System.currentTimeMillis();
+        intervalStart = end;
+        SortedMap<String, HystrixCommandSnapshot> commands = new TreeMap<>();
+        buckets.forEach((name, bucket) -> {
+            HystrixCommandSnapshot command = bucket.drain();
+            if (command != null) {
+                commands.put(name, command);
+            }
+        });
+        return new MergeableHystrixSnapshot(start, end, commands);
+    }
+
+    /**
+     * Mutable counters of one command, reset every time a snapshot is taken
+     */
+    private static final class Bucket {
+
+        private final LongAdder[] eventCounts = new LongAdder[EVENT_TYPES.length];
+        private final LongAdder completionCount = new LongAdder();
+        private final AtomicLongArray executionLatency = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        private final AtomicLongArray totalLatency = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+        Bucket() {
+            for (int i = 0; i < eventCounts.length; i++) {
+                eventCounts[i] = new LongAdder();
+            }
+        }
+
+        void record(HystrixCommandCompletion completion) {
+            ExecutionResult.EventCounts counts = completion.getEventCounts();
+            for (HystrixEventType eventType : EVENT_TYPES) {
+                int count = counts.getCount(eventType);
+                if (count > 0) {
+                    eventCounts[eventType.ordinal()].add(count);
+                }
+            }
+            long execution = completion.getExecutionLatency();
+            if (execution >= 0) {
+                executionLatency.incrementAndGet(LatencyHistogram.bucketIndex(execution));
+            }
+            long total = completion.getTotalLatency();
+            if (total >= 0) {
+                totalLatency.incrementAndGet(LatencyHistogram.bucketIndex(total));
+            }
+            completionCount.increment();
+        }
+
+        /**
+         * @return counts since the previous drain or null if there were no completions
+         */
+        HystrixCommandSnapshot drain() {
+            if (completionCount.sumThenReset() == 0) {
+                return null;
+            }
+            long[] counts = new long[eventCounts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = eventCounts[i].sumThenReset();
+            }
+            return new HystrixCommandSnapshot(counts, drain(executionLatency), drain(totalLatency));
+        }
+
+        private static long[] drain(AtomicLongArray histogram) {
+            long[] result = new long[histogram.length()];
+            for (int i = 0; i < result.length; i++) {
+                if (histogram.get(i) != 0) {
+                    result[i] = histogram.getAndSet(i, 0);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherCollapser;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherCommand;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherThreadPool;
+
+/**
+ * Shared publishers that do nothing, returned when there is nobody to initialize, so no publisher is allocated
+ */
+final class NoOpMetricsPublishers {
+
+    static final HystrixMetricsPublisherCommand COMMAND = () -> {
+    };
+    static final HystrixMetricsPublisherThreadPool THREAD_POOL = () -> {
+    };
+    static final HystrixMetricsPublisherCollapser COLLAPSER = () -> {
+    };
+
+    private NoOpMetricsPublishers() {
+    }
+}
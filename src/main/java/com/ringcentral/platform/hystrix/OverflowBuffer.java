@@ -0,0 +1,65 @@
+package com.ringcentral.platform.hystrix;
+
+/**
+ * Bounded ring buffer that never blocks the producer: events that don't fit are dropped according to {@link OverflowStrategy}.
+ * All methods are synchronized, the buffer is meant to be filled by any thread and drained by one.
+ */
+final class OverflowBuffer<T> {
+
+    private final OverflowStrategy strategy;
+    private final Object[] buffer;
+    private int head;
+    private int size;
+    private long sequence;
+
+    OverflowBuffer(OverflowStrategy strategy, int capacity) {
+        this.strategy = strategy;
+        this.buffer = new Object[capacity];
+    }
+
+    /**
+     * @return false if an event was dropped
+     */
+    synchronized boolean offer(T event) {
+        int capacity = buffer.length;
+        if (size == capacity) {
+            if (strategy == OverflowStrategy.DROP_OLDEST) {
+                buffer[head] = event;
+                head = (head + 1) % capacity;
+            }
+            return false;
+        }
+        if (strategy == OverflowStrategy.SAMPLE) {
+            int half = capacity / 2;
+            if (size >= half) {
+                int step = 1 << (1 + (size - half) * 4 / (capacity - half));
+                if (sequence++ % step != 0) {
+                    return false;
+                }
+            }
+        }
+        buffer[(head + size) % capacity] = event;
+        size++;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T event = (T) buffer[head];
+        buffer[head] = null;
+        head = (head + 1) % buffer.length;
+        size--;
+        return event;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ringcentral.platform.hystrix;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decouples a subscriber from the producing threads with a bounded ring buffer.
+ * The producer never blocks: events that don't fit into the buffer are dropped according to {@link OverflowStrategy}.
+ * Events are delivered on the scheduler honouring the subscriber's requests.
+ */
+final class OverflowOperator<T> implements Observable.Operator<T, T> {
+
+    private final OverflowStrategy strategy;
+    private final int capacity;
+    private final Scheduler scheduler;
+    private final LongAdder dropped;
+
+    OverflowOperator(OverflowStrategy strategy, int capacity, Scheduler scheduler, LongAdder dropped) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.strategy = strategy;
+        this.capacity = capacity;
+        this.scheduler = scheduler;
+        this.dropped = dropped;
+    }
+
+    @Override
+    public Subscriber<? super T> call(Subscriber<? super T> child) {
+        Scheduler.Worker worker = scheduler.createWorker();
+        OverflowSubscriber<T> parent = new OverflowSubscriber<>(child, worker, strategy, capacity, dropped);
+        child.add(parent);
+        child.add(worker);
+        child.setProducer(parent::requestFromChild);
+        return parent;
+    }
+
+    private static final class OverflowSubscriber<T> extends Subscriber<T> {
+
+        private final Subscriber<? super T> child;
+        private final Scheduler.Worker worker;
+        private final LongAdder dropped;
+        private final OverflowBuffer<T> buffer;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+        private Throwable error;
+
+        OverflowSubscriber(Subscriber<? super T> child, Scheduler.Worker worker, OverflowStrategy strategy, int capacity, LongAdder dropped) {
+            this.child = child;
+            this.worker = worker;
+            this.dropped = dropped;
+            this.buffer = new OverflowBuffer<>(strategy, capacity);
+        }
+
+        @Override
+        public void onStart() {
+            request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T event) {
+            if (!buffer.offer(event)) {
+                dropped.increment();
+            }
+            schedule();
+        }
+
+        @Override
+        public void onCompleted() {
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            done = true;
+            schedule();
+        }
+
+        void requestFromChild(long n) {
+            if (n <= 0) {
+                return;
+            }
+            for (;;) {
+                long current = requested.get();
+                long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (requested.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long emitted = 0;
+                while (emitted != r && !child.isUnsubscribed()) {
+                    T event = buffer.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    child.onNext(event);
+                    emitted++;
+                }
+                if (emitted > 0 && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (done && buffer.size() == 0) {
+                    if (error != null) {
+                        child.onError(error);
+                    } else {
+                        child.onCompleted();
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ringcentral.platform.hystrix;
+
+/**
+ * Defines what {@link BoundedHystrixEventStream} and {@link PartitionedHystrixCommandCompletionStream} do with events
+ * when a subscriber can't keep up
+ */
+public enum OverflowStrategy {
+
+    /** when the buffer is full the oldest buffered event is dropped to make room for the new one **/
+    DROP_OLDEST,
+
+    /** when the buffer is full new events are dropped **/
+    DROP_NEWEST,
+
+    /**
+     * when the buffer is more than half full only every 2nd, 4th, 8th or 16th event is accepted depending on how full the buffer is,
+     * when the buffer is full new events are dropped
+     */
+    SAMPLE
+}
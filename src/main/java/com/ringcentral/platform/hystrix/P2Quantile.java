@@ -0,0 +1,93 @@
+package com.ringcentral.platform.hystrix;
+
+import java.util.Arrays;
+
+/**
+ * Streaming estimate of a quantile with constant memory, P-square algorithm of Jain and Chlamtac:
+ * five markers are kept, the middle one tracks the quantile and is adjusted with piecewise-parabolic interpolation.
+ * Not thread-safe.
+ */
+final class P2Quantile {
+
+    private final double[] heights = new double[5];
+    private final int[] positions = {0, 1, 2, 3, 4};
+    private final double[] desired;
+    private final double[] increments;
+    private long count;
+
+    P2Quantile(double quantile) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("Quantile must be in range (0, 1): " + quantile);
+        }
+        desired = new double[]{0, 2 * quantile, 4 * quantile, 2 + 2 * quantile, 4};
+        increments = new double[]{0, quantile / 2, quantile, (1 + quantile) / 2, 1};
+    }
+
+    void add(double value) {
+        if (count < 5) {
+            heights[(int) count++] = value;
+            if (count == 5) {
+                Arrays.sort(heights);
+            }
+            return;
+        }
+        int k;
+        if (value < heights[0]) {
+            heights[0] = value;
+            k = 0;
+        } else if (value >= heights[4]) {
+            heights[4] = value;
+            k = 3;
+        } else {
+            k = 0;
+            while (value >= heights[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desired[i] += increments[i];
+        }
+        count++;
+        for (int i = 1; i < 4; i++) {
+            double d = desired[i] - positions[i];
+            if ((d >= 1 && positions[i + 1] - positions[i] > 1) || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int sign = d > 0 ? 1 : -1;
+                double height = parabolic(i, sign);
+                heights[i] = heights[i - 1] < height && height < heights[i + 1] ? height : linear(i, sign);
+                positions[i] += sign;
+            }
+        }
+    }
+
+    /**
+     * @return the estimate or 0 if nothing was added
+     */
+    double get() {
+        if (count >= 5) {
+            return heights[2];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        double[] sorted = Arrays.copyOf(heights, (int) count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(count - 1, Math.round((count - 1) * increments[2]))];
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    private double parabolic(int i, int sign) {
+        return heights[i] + (double) sign / (positions[i + 1] - positions[i - 1])
+                * ((positions[i] - positions[i - 1] + sign) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i])
+                + (positions[i + 1] - positions[i] - sign) * (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]));
+    }
+
+    private double linear(int i, int sign) {
+        return heights[i] + sign * (heights[i + sign] - heights[i]) / (positions[i + sign] - positions[i]);
+    }
+}
@@ -0,0 +1,254 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+import rx.subscriptions.CompositeSubscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Partitioned variant of {@link AggregatedHystrixCommandCompletionStream#observe()} that lets subscribers use more than one core.
+ * Completions are not merged into one serialized stream: they are routed by hash of the command key into bounded lanes,
+ * and every lane is drained by its own single-threaded worker. All completions of a command go to the same lane,
+ * so they are delivered in order, while completions of different commands are processed in parallel.
+ * Events that don't fit into a lane are dropped according to {@link OverflowStrategy} and counted.
+ * The source is subscribed while any of the partitions has subscribers.
+ */
+public class PartitionedHystrixCommandCompletionStream implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedHystrixCommandCompletionStream.class);
+
+    private final AggregatedHystrixCommandCompletionStream source;
+    private final Lane[] lanes;
+    private final List<Observable<HystrixCommandCompletion>> partitions;
+    private final List<ExecutorService> executors;
+    private int subscriberCount;
+    private CompositeSubscription subscription;
+
+    /**
+     * Creates lanes that drop new completions when full, every lane is drained by its own daemon thread
+     */
+    public PartitionedHystrixCommandCompletionStream(AggregatedHystrixCommandCompletionStream source, int partitionCount, int queueCapacity) {
+        this(source, partitionCount, queueCapacity, OverflowStrategy.DROP_NEWEST, null);
+    }
+
+    /**
+     * @param scheduler every lane is drained by its own worker of the scheduler,
+     *                  e.g. workers of {@link Schedulers#computation()} are single-threaded and spread across cores
+     */
+    public PartitionedHystrixCommandCompletionStream(AggregatedHystrixCommandCompletionStream source, int partitionCount, int queueCapacity,
+                                                     OverflowStrategy strategy, Scheduler scheduler) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be positive");
+        }
+        if (queueCapacity < 2) {
+            throw new IllegalArgumentException("queueCapacity must be at least 2");
+        }
+        this.source = source;
+        this.lanes = new Lane[partitionCount];
+        List<Observable<HystrixCommandCompletion>> partitions = new ArrayList<>(partitionCount);
+        List<ExecutorService> executors = new ArrayList<>(scheduler == null ? partitionCount : 0);
+        for (int i = 0; i < partitionCount; i++) {
+            Scheduler laneScheduler = scheduler;
+            if (laneScheduler == null) {
+                String name = "hystrix-completion-partition-" + i;
+                ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executors.add(executor);
+                laneScheduler = Schedulers.from(executor);
+            }
+            lanes[i] = new Lane(new OverflowBuffer<>(strategy, queueCapacity), laneScheduler.createWorker());
+            partitions.add(lanes[i].subject
+                    .doOnSubscribe(this::connect)
+                    .doOnUnsubscribe(this::disconnect));
+        }
+        this.partitions = Collections.unmodifiableList(partitions);
+        this.executors = executors;
+    }
+
+    /**
+     * @return completions of the commands of the partition, delivered on the lane thread
+     */
+    public Observable<HystrixCommandCompletion> observe(int partition) {
+        return partitions.get(partition);
+    }
+
+    /**
+     * @return all partitions, every one of them should be subscribed so that no lane is drained for nothing
+     */
+    public List<Observable<HystrixCommandCompletion>> observePartitions() {
+        return partitions;
+    }
+
+    public int getPartitionCount() {
+        return lanes.length;
+    }
+
+    public int partitionOf(HystrixCommandKey key) {
+        int hash = key.name().hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    public int getQueueCapacity() {
+        return lanes[0].buffer.capacity();
+    }
+
+    /**
+     * @return number of completions waiting in the lane of the partition
+     */
+    public int getQueueDepth(int partition) {
+        return lanes[partition].buffer.size();
+    }
+
+    /**
+     * @return number of completions delivered by the lane of the partition since the stream was created
+     */
+    public long getDeliveredCount(int partition) {
+        return lanes[partition].delivered.sum();
+    }
+
+    /**
+     * @return number of completions dropped by the lane of the partition since the stream was created
+     */
+    public long getDroppedCount(int partition) {
+        return lanes[partition].dropped.sum();
+    }
+
+    /**
+     * @return number of completions dropped by all lanes since the stream was created
+     */
+    public long getDroppedCount() {
+        long result = 0;
+        for (Lane lane : lanes) {
+            result += lane.dropped.sum();
+        }
+        return result;
+    }
+
+    /**
+     * Stops routing of completions and the lane threads created by the stream
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (subscription != null) {
+                subscription.unsubscribe();
+                subscription = null;
+            }
+        }
+        for (Lane lane : lanes) {
+            lane.worker.unsubscribe();
+        }
+        executors.forEach(ExecutorService::shutdown);
+    }
+
+    private synchronized void connect() {
+        if (subscriberCount++ > 0) {
+            return;
+        }
+        log.debug("Start routing of command completions to {} partitions", lanes.length);
+        CompositeSubscription routes = new CompositeSubscription();
+        routes.add(source.observeStreams().subscribe(stream -> {
+            Router router = new Router(routes);
+            routes.add(router);
+            stream.subscribe(router);
+        }, e -> log.warn("Completion streams failed", e)));
+        subscription = routes;
+    }
+
+    private synchronized void disconnect() {
+        if (--subscriberCount > 0 || subscription == null) {
+            return;
+        }
+        log.debug("Stop routing of command completions");
+        subscription.unsubscribe();
+        subscription = null;
+    }
+
+    /**
+     * Routes completions of one command on the thread that produced them, without serializing them with other commands
+     */
+    private final class Router extends Subscriber<HystrixCommandCompletion> {
+
+        private final CompositeSubscription routes;
+
+        Router(CompositeSubscription routes) {
+            this.routes = routes;
+        }
+
+        @Override
+        public void onNext(HystrixCommandCompletion completion) {
+            lanes[partitionOf(completion.getCommandKey())].offer(completion);
+        }
+
+        @Override
+        public void onCompleted() {
+            routes.remove(this);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            log.warn("Completion stream failed", e);
+            routes.remove(this);
+        }
+    }
+
+    private static final class Lane {
+
+        private final OverflowBuffer<HystrixCommandCompletion> buffer;
+        private final Scheduler.Worker worker;
+        private final PublishSubject<HystrixCommandCompletion> subject = PublishSubject.create();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        Lane(OverflowBuffer<HystrixCommandCompletion> buffer, Scheduler.Worker worker) {
+            this.buffer = buffer;
+            this.worker = worker;
+        }
+
+        void offer(HystrixCommandCompletion completion) {
+            if (!buffer.offer(completion)) {
+                dropped.increment();
+            }
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            for (;;) {
+                HystrixCommandCompletion completion;
+                while ((completion = buffer.poll()) != null) {
+                    delivered.increment();
+                    try {
+                        subject.onNext(completion);
+                    } catch (RuntimeException e) {
+                        log.warn("Subscriber of completions failed", e);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reduces every completion of the source stream exactly once into preallocated per-command buckets
+ * and publishes immutable snapshots of them on a fixed interval.
+ * All subscribers share one subscription to the source stream, so the reduction is not repeated per subscriber.
+ */
+public class RollingHystrixCommandAggregateStream {
+
+    private static final Logger log = LoggerFactory.getLogger(RollingHystrixCommandAggregateStream.class);
+    private static final HystrixEventType[] EVENT_TYPES = HystrixEventType.values();
+
+    private final ConcurrentMap<HystrixCommandKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Observable<Map<HystrixCommandKey, HystrixCommandAggregate>> snapshots;
+    private volatile long intervalStart = System.currentTimeMillis();
+
+    public RollingHystrixCommandAggregateStream(HystrixEventStream<HystrixCommandCompletion> source, long interval, TimeUnit unit) {
+        this(source, interval, unit, Schedulers.computation());
+    }
+
+    public RollingHystrixCommandAggregateStream(HystrixEventStream<HystrixCommandCompletion> source, long interval, TimeUnit unit,
+                                                Scheduler scheduler) {
+        snapshots = Observable.using(
+                () -> subscribe(source),
+                s -> Observable.interval(interval, interval, unit, scheduler).map(tick -> snapshot()),
+                Subscription::unsubscribe)
+                .share();
+    }
+
+    public Observable<Map<HystrixCommandKey, HystrixCommandAggregate>> observe() {
+        return snapshots;
+    }
+
+    private Subscription subscribe(HystrixEventStream<HystrixCommandCompletion> source) {
+        log.debug("Start aggregation of command completions");
+        intervalStart = System.currentTimeMillis();
+        return source.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        buckets.computeIfAbsent(completion.getCommandKey(), k -> new Bucket()).record(completion);
+    }
+
+    private Map<HystrixCommandKey, HystrixCommandAggregate> snapshot() {
+        long start = intervalStart;
+        long end = System.currentTimeMillis();
+        intervalStart = end;
+        Map<HystrixCommandKey, HystrixCommandAggregate> result = new LinkedHashMap<>(buckets.size() * 2);
+        buckets.forEach((key, bucket) -> result.put(key, bucket.drain(key, start, end)));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Mutable counters of one command, reset every time a snapshot is taken
+     */
+    private static final class Bucket {
+
+        private final LongAdder[] eventCounts = new LongAdder[EVENT_TYPES.length];
+        private final LongAdder completionCount = new LongAdder();
+        private final LongAdder executionCount = new LongAdder();
+        private final LongAdder executionLatencySum = new LongAdder();
+        private final LongAccumulator executionLatencyMax = new LongAccumulator(Math::max, 0);
+        private final LongAdder totalLatencySum = new LongAdder();
+        private final LongAccumulator totalLatencyMax = new LongAccumulator(Math::max, 0);
+
+        Bucket() {
+            for (int i = 0; i < eventCounts.length; i++) {
+                eventCounts[i] = new LongAdder();
+            }
+        }
+
+        void record(HystrixCommandCompletion completion) {
+            ExecutionResult.EventCounts counts = completion.getEventCounts();
+            for (HystrixEventType eventType : EVENT_TYPES) {
+                int count = counts.getCount(eventType);
+                if (count > 0) {
+                    eventCounts[eventType.ordinal()].add(count);
+                }
+            }
+            completionCount.increment();
+            long executionLatency = completion.getExecutionLatency();
+            if (executionLatency >= 0) {
+                executionCount.increment();
+                executionLatencySum.add(executionLatency);
+                executionLatencyMax.accumulate(executionLatency);
+            }
+            long totalLatency = completion.getTotalLatency();
+            if (totalLatency >= 0) {
+                totalLatencySum.add(totalLatency);
+                totalLatencyMax.accumulate(totalLatency);
+            }
+        }
+
+        HystrixCommandAggregate drain(HystrixCommandKey key, long start, long end) {
+            long[] counts = new long[eventCounts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = eventCounts[i].sumThenReset();
+            }
+            HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(key);
+            return new HystrixCommandAggregate(key, start, end, counts,
+                    completionCount.sumThenReset(),
+                    executionCount.sumThenReset(),
+                    executionLatencySum.sumThenReset(),
+                    executionLatencyMax.getThenReset(),
+                    totalLatencySum.sumThenReset(),
+                    totalLatencyMax.getThenReset(),
+                    metrics == null ? 0 : metrics.getCurrentConcurrentExecutionCount());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a completion stream, e.g. {@link AggregatedHystrixCommandCompletionStream}, so that every subscriber receives
+ * all completions with failures, timeouts and rejections but only a sample of successful ones.
+ * The sampling interval adapts to the current rate of successes, so a subscriber receives about
+ * {@code targetSuccessesPerSecond} of them however high the traffic goes.
+ * Counts can be scaled back up with {@link WeightedHystrixCommandCompletion#getWeight()}.
+ */
+public class SampledHystrixCommandCompletionStream implements HystrixEventStream<WeightedHystrixCommandCompletion> {
+
+    private final LongAdder sampledOut = new LongAdder();
+    private final Observable<WeightedHystrixCommandCompletion> stream;
+
+    public SampledHystrixCommandCompletionStream(HystrixEventStream<HystrixCommandCompletion> source, long targetSuccessesPerSecond) {
+        this(source, targetSuccessesPerSecond, Schedulers.computation());
+    }
+
+    /**
+     * @param scheduler provides the current time to measure the rate of successes
+     */
+    public SampledHystrixCommandCompletionStream(HystrixEventStream<HystrixCommandCompletion> source, long targetSuccessesPerSecond,
+                                                 Scheduler scheduler) {
+        stream = source.observe().lift(new AdaptiveSamplingOperator(targetSuccessesPerSecond, scheduler, sampledOut));
+    }
+
+    @Override
+    public Observable<WeightedHystrixCommandCompletion> observe() {
+        return stream;
+    }
+
+    /**
+     * Every subscriber samples independently, so a completion skipped by two subscribers is counted twice.
+     *
+     * @return number of successful completions sampled out, summed over all subscribers
+     */
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEvent;
+
+/**
+ * Completion kept by {@link SampledHystrixCommandCompletionStream} together with the number of completions it represents
+ */
+public final class WeightedHystrixCommandCompletion implements HystrixEvent {
+
+    private final HystrixCommandCompletion completion;
+    private final long weight;
+
+    WeightedHystrixCommandCompletion(HystrixCommandCompletion completion, long weight) {
+        this.completion = completion;
+        this.weight = weight;
+    }
+
+    public HystrixCommandCompletion getCompletion() {
+        return completion;
+    }
+
+    /**
+     * @return number of completions this one stands for, 1 for completions that are never sampled
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedHystrixCommandCompletion{weight=" + weight + ", completion=" + completion + '}';
+    }
+}
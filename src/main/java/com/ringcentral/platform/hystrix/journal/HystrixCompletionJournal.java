@@ -0,0 +1,164 @@
+package com.ringcentral.platform.hystrix.journal;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Subscription;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.ringcentral.platform.hystrix.journal.JournalFormat.*;
+
+/**
+ * Sink that keeps the last completions of the stream in a memory-mapped ring buffer file.
+ * Every completion is encoded into a fixed-size record, so the file size depends only on the capacity.
+ * The mapped file is written by the operating system, so records survive a crash of the process,
+ * and can be dumped by {@link HystrixCompletionJournalReader}.
+ * If the file already exists with the same capacity, the journal continues after its last record.
+ * <p>
+ * Rx-Java guarantees that completions of one stream are delivered sequentially, so records are written without locking.
+ */
+public class HystrixCompletionJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixCompletionJournal.class);
+    private static final HystrixEventType[] EVENT_TYPES = HystrixEventType.values();
+
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final DataOutputStream keysOutput;
+    private final Map<HystrixCommandKey, Integer> keyIds = new HashMap<>();
+    private final Map<String, Integer> knownNames;
+    private final Subscription subscription;
+    private long sequence;
+
+    public HystrixCompletionJournal(HystrixEventStream<HystrixCommandCompletion> stream, Path file, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        Path keysFile = keysFile(file);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer existing = channel.size() == fileSize(capacity)
+                    ? channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity)) : null;
+            if (existing != null && existing.getInt(MAGIC_OFFSET) == MAGIC && existing.getInt(VERSION_OFFSET) == VERSION
+                    && existing.getInt(CAPACITY_OFFSET) == capacity && existing.getInt(RECORD_SIZE_OFFSET) == RECORD_SIZE
+                    && Files.exists(keysFile)) {
+                buffer = existing;
+                sequence = buffer.getLong(SEQUENCE_OFFSET);
+                knownNames = HystrixCompletionJournalReader.readKeys(keysFile);
+                log.info("Continue journal {} after record {}", file, sequence);
+            } else {
+                channel.truncate(0);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                buffer.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+                knownNames = new HashMap<>();
+                log.info("Start journal {} with capacity {}", file, capacity);
+            }
+            keysOutput = rewriteKeys(keysFile, knownNames);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        subscription = stream.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+    }
+
+    /**
+     * @return sequence of the last written record
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        subscription.unsubscribe();
+        try {
+            keysOutput.close();
+            buffer.force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        int keyId = keyId(completion.getCommandKey());
+        ExecutionResult.EventCounts counts = completion.getEventCounts();
+        int events = 0;
+        for (HystrixEventType eventType : EVENT_TYPES) {
+            if (counts.contains(eventType)) {
+                events |= 1 << eventType.ordinal();
+            }
+        }
+        long next = sequence + 1;
+        int offset = (int) recordOffset(capacity, next);
+        buffer.putLong(offset + RECORD_SEQUENCE_OFFSET, next);
+        buffer.putLong(offset + RECORD_TIMESTAMP_OFFSET, System.currentTimeMillis());
+        buffer.putInt(offset + RECORD_KEY_ID_OFFSET, keyId);
+        buffer.putInt(offset + RECORD_EVENTS_OFFSET, events);
+        buffer.putInt(offset + RECORD_EXECUTION_LATENCY_OFFSET, toInt(completion.getExecutionLatency()));
+        buffer.putInt(offset + RECORD_TOTAL_LATENCY_OFFSET, toInt(completion.getTotalLatency()));
+        buffer.putLong(offset + RECORD_SEQUENCE_END_OFFSET, next);
+        buffer.putLong(SEQUENCE_OFFSET, next);
+        sequence = next;
+    }
+
+    private int keyId(HystrixCommandKey key) {
+        Integer id = keyIds.get(key);
+        if (id == null) {
+            String name = key.name();
+            id = knownNames.get(name);
+            if (id == null) {
+                id = knownNames.size();
+                try {
+                    keysOutput.writeInt(id);
+                    keysOutput.writeUTF(name);
+                    keysOutput.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                knownNames.put(name, id);
+            }
+            keyIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Rewrites the keys file, so new keys are not appended after an entry torn by a crash
+     */
+    private static DataOutputStream rewriteKeys(Path keysFile, Map<String, Integer> names) throws IOException {
+        Path temp = keysFile.resolveSibling(keysFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (Map.Entry<String, Integer> entry : names.entrySet()) {
+                out.writeInt(entry.getValue());
+                out.writeUTF(entry.getKey());
+            }
+        }
+        Files.move(temp, keysFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(keysFile, StandardOpenOption.APPEND)));
+    }
+
+    private static int toInt(long latency) {
+        return (int) Math.max(-1, Math.min(Integer.MAX_VALUE, latency));
+    }
+}
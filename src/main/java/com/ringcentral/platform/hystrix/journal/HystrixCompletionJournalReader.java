@@ -0,0 +1,98 @@
+package com.ringcentral.platform.hystrix.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.ringcentral.platform.hystrix.journal.JournalFormat.*;
+
+/**
+ * Reads records of a {@link HystrixCompletionJournal} file, can be used as a command line tool:
+ * {@code java -cp <classpath> com.ringcentral.platform.hystrix.journal.HystrixCompletionJournalReader <file>}
+ */
+public final class HystrixCompletionJournalReader {
+
+    private HystrixCompletionJournalReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: HystrixCompletionJournalReader <journal file>");
+            System.exit(1);
+        }
+        for (JournalRecord record : read(Paths.get(args[0]))) {
+            System.out.println(record);
+        }
+    }
+
+    /**
+     * @return complete records of the journal ordered by sequence, torn records are skipped
+     */
+    public static List<JournalRecord> read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a journal file: " + file);
+        }
+        if (buffer.getInt(VERSION_OFFSET) != VERSION || buffer.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+            throw new IOException("Unsupported journal version " + buffer.getInt(VERSION_OFFSET) + ": " + file);
+        }
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        if (buffer.capacity() < fileSize(capacity)) {
+            throw new IOException("Journal file is truncated: " + file);
+        }
+        Map<Integer, String> names = new HashMap<>();
+        readKeys(keysFile(file)).forEach((name, id) -> names.put(id, name));
+
+        List<JournalRecord> records = new ArrayList<>(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            long sequence = buffer.getLong(offset + RECORD_SEQUENCE_OFFSET);
+            if (sequence <= 0 || sequence != buffer.getLong(offset + RECORD_SEQUENCE_END_OFFSET)
+                    || recordOffset(capacity, sequence) != offset) {
+                continue;
+            }
+            int keyId = buffer.getInt(offset + RECORD_KEY_ID_OFFSET);
+            records.add(new JournalRecord(sequence,
+                    buffer.getLong(offset + RECORD_TIMESTAMP_OFFSET),
+                    names.getOrDefault(keyId, "#" + keyId),
+                    buffer.getInt(offset + RECORD_EVENTS_OFFSET),
+                    buffer.getInt(offset + RECORD_EXECUTION_LATENCY_OFFSET),
+                    buffer.getInt(offset + RECORD_TOTAL_LATENCY_OFFSET)));
+        }
+        records.sort(Comparator.comparingLong(JournalRecord::getSequence));
+        return records;
+    }
+
+    /**
+     * @return ids of command keys by name, an entry torn by a crash is ignored
+     */
+    static Map<String, Integer> readKeys(Path keysFile) throws IOException {
+        Map<String, Integer> result = new HashMap<>();
+        if (!Files.exists(keysFile)) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(keysFile)))) {
+            while (true) {
+                int id = in.readInt();
+                result.put(in.readUTF(), id);
+            }
+        } catch (EOFException e) {
+            return result;
+        }
+    }
+}
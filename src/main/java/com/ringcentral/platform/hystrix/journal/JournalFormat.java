@@ -0,0 +1,59 @@
+package com.ringcentral.platform.hystrix.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Layout of the journal file.
+ * <p>
+ * Header: magic, version, capacity, record size and the sequence of the last written record.
+ * Record: sequence, timestamp, command key id, bitset of event type ordinals, execution latency,
+ * total latency and the sequence repeated, so a record torn by a crash is detected by the sequence mismatch.
+ * Sequences start from 1, record with sequence {@code n} is written into slot {@code (n - 1) % capacity}.
+ * Command key names are kept in a sidecar {@code .keys} file as pairs of id and name.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x48594A52;
+    static final int VERSION = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int CAPACITY_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int SEQUENCE_OFFSET = 16;
+    static final int HEADER_SIZE = 64;
+
+    static final int RECORD_SEQUENCE_OFFSET = 0;
+    static final int RECORD_TIMESTAMP_OFFSET = 8;
+    static final int RECORD_KEY_ID_OFFSET = 16;
+    static final int RECORD_EVENTS_OFFSET = 20;
+    static final int RECORD_EXECUTION_LATENCY_OFFSET = 24;
+    static final int RECORD_TOTAL_LATENCY_OFFSET = 28;
+    static final int RECORD_SEQUENCE_END_OFFSET = 32;
+    static final int RECORD_SIZE = 40;
+
+    static final String KEYS_SUFFIX = ".keys";
+
+    private JournalFormat() {
+    }
+
+    static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+
+    static long recordOffset(int capacity, long sequence) {
+        return HEADER_SIZE + ((sequence - 1) % capacity) * RECORD_SIZE;
+    }
+
+    static Path keysFile(Path file) throws IOException {
+        Path name = file.getFileName();
+        if (name == null) {
+            throw new IOException("Not a file: " + file);
+        }
+        Path parent = file.getParent();
+        String keysName = name + KEYS_SUFFIX;
+        return parent == null ? Paths.get(keysName) : parent.resolve(keysName);
+    }
+}
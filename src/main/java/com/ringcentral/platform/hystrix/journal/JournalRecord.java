@@ -0,0 +1,80 @@
+package com.ringcentral.platform.hystrix.journal;
+
+import com.netflix.hystrix.HystrixEventType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decoded record of the journal
+ */
+public final class JournalRecord {
+
+    private static final HystrixEventType[] EVENT_TYPES = HystrixEventType.values();
+
+    private final long sequence;
+    private final long timestamp;
+    private final String commandName;
+    private final int events;
+    private final int executionLatency;
+    private final int totalLatency;
+
+    JournalRecord(long sequence, long timestamp, String commandName, int events, int executionLatency, int totalLatency) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.commandName = commandName;
+        this.events = events;
+        this.executionLatency = executionLatency;
+        this.totalLatency = totalLatency;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return time in milliseconds when the completion was journaled
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public Set<HystrixEventType> getEventTypes() {
+        EnumSet<HystrixEventType> result = EnumSet.noneOf(HystrixEventType.class);
+        for (HystrixEventType eventType : EVENT_TYPES) {
+            if (contains(eventType)) {
+                result.add(eventType);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    public boolean contains(HystrixEventType eventType) {
+        return (events & (1 << eventType.ordinal())) != 0;
+    }
+
+    /**
+     * @return execution latency in milliseconds or -1 if the command was not executed
+     */
+    public int getExecutionLatency() {
+        return executionLatency;
+    }
+
+    /**
+     * @return total latency in milliseconds or -1 if it is unknown
+     */
+    public int getTotalLatency() {
+        return totalLatency;
+    }
+
+    @Override
+    public String toString() {
+        return sequence + " " + timestamp + " " + commandName + " " + getEventTypes()
+                + " executionLatency=" + executionLatency + " totalLatency=" + totalLatency;
+    }
+}
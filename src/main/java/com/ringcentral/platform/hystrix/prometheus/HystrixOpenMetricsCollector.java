@@ -0,0 +1,361 @@
+package com.ringcentral.platform.hystrix.prometheus;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixEventStream;
+import com.ringcentral.platform.hystrix.HystrixConcurrencyAdvisor;
+import com.ringcentral.platform.hystrix.HystrixConcurrencyRecommendation;
+import com.ringcentral.platform.hystrix.HystrixConcurrencyRecommendations;
+import com.ringcentral.platform.hystrix.PartitionedHystrixCommandCompletionStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Subscription;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.ringcentral.platform.hystrix.prometheus.OpenMetricsBuffer.utf8;
+
+/**
+ * Consumes command completions into primitive counters and latency histograms per command
+ * and renders them in the OpenMetrics text format.
+ * Label values are encoded once per command and the output buffer is reused, so a scrape is O(commands)
+ * and allocates almost nothing.
+ */
+public class HystrixOpenMetricsCollector implements AutoCloseable {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixOpenMetricsCollector.class);
+    private static final HystrixEventType[] EVENT_TYPES = HystrixEventType.values();
+    /** upper bounds of latency buckets in milliseconds **/
+    private static final long[] LATENCY_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final byte[] EVENTS_HEADER = utf8("# TYPE hystrix_command_events counter\n"
+            + "# HELP hystrix_command_events Number of command events by type.\n");
+    private static final byte[] EVENTS_NAME = utf8("hystrix_command_events_total{");
+    private static final byte[] EVENT_LABEL = utf8(",event=\"");
+    private static final byte[][] EVENT_NAMES = new byte[EVENT_TYPES.length][];
+    private static final byte[] EXECUTION_LATENCY_HEADER = histogramHeader("hystrix_command_execution_latency_milliseconds",
+            "Latency of command execution.");
+    private static final byte[] EXECUTION_LATENCY_NAME = utf8("hystrix_command_execution_latency_milliseconds");
+    private static final byte[] TOTAL_LATENCY_HEADER = histogramHeader("hystrix_command_total_latency_milliseconds",
+            "Latency of command from start to end including queueing and fallback.");
+    private static final byte[] TOTAL_LATENCY_NAME = utf8("hystrix_command_total_latency_milliseconds");
+    private static final byte[] BUCKET_SUFFIX = utf8("_bucket{");
+    private static final byte[] COUNT_SUFFIX = utf8("_count{");
+    private static final byte[] SUM_SUFFIX = utf8("_sum{");
+    private static final byte[][] LE_LABELS = new byte[LATENCY_BOUNDS.length + 1][];
+    private static final byte[] LABELS_END = utf8("} ");
+    private static final byte[] EOF = utf8("# EOF\n");
+    /** recommended, average and configured concurrency of commands **/
+    private static final byte[][] COMMAND_CONCURRENCY_NAMES = {
+            utf8("hystrix_command_concurrency_recommended{"),
+            utf8("hystrix_command_concurrency_average{"),
+            utf8("hystrix_command_concurrency_limit{")};
+    private static final byte[][] COMMAND_CONCURRENCY_HEADERS = {
+            gaugeHeader("hystrix_command_concurrency_recommended", "Concurrency limit recommended for the command."),
+            gaugeHeader("hystrix_command_concurrency_average", "Average concurrency of the command during the last interval."),
+            gaugeHeader("hystrix_command_concurrency_limit", "Configured semaphore limit of the command.")};
+    /** recommended, average and configured concurrency of thread pools **/
+    private static final byte[][] THREAD_POOL_CONCURRENCY_NAMES = {
+            utf8("hystrix_thread_pool_concurrency_recommended{"),
+            utf8("hystrix_thread_pool_concurrency_average{"),
+            utf8("hystrix_thread_pool_concurrency_limit{")};
+    private static final byte[][] THREAD_POOL_CONCURRENCY_HEADERS = {
+            gaugeHeader("hystrix_thread_pool_concurrency_recommended", "Core size recommended for the thread pool."),
+            gaugeHeader("hystrix_thread_pool_concurrency_average", "Average concurrency of the thread pool during the last interval."),
+            gaugeHeader("hystrix_thread_pool_concurrency_limit", "Configured core size of the thread pool.")};
+    private static final byte[] PARTITIONS_HEADER = gaugeHeader("hystrix_completion_partitions",
+            "Number of partitions of the completion stream.");
+    private static final byte[] PARTITIONS_NAME = utf8("hystrix_completion_partitions ");
+    private static final byte[] PARTITION_QUEUE_DEPTH_HEADER = gaugeHeader("hystrix_completion_partition_queue_depth",
+            "Number of completions waiting in the lane of the partition.");
+    private static final byte[] PARTITION_QUEUE_DEPTH_NAME = utf8("hystrix_completion_partition_queue_depth{");
+    private static final byte[] PARTITION_DROPPED_HEADER = utf8("# TYPE hystrix_completion_partition_dropped counter\n"
+            + "# HELP hystrix_completion_partition_dropped Number of completions dropped by the lane of the partition.\n");
+    private static final byte[] PARTITION_DROPPED_NAME = utf8("hystrix_completion_partition_dropped_total{");
+
+    static {
+        for (HystrixEventType eventType : EVENT_TYPES) {
+            EVENT_NAMES[eventType.ordinal()] = utf8(eventType.name().toLowerCase(Locale.ROOT) + "\"} ");
+        }
+        for (int i = 0; i < LATENCY_BOUNDS.length; i++) {
+            LE_LABELS[i] = utf8(",le=\"" + LATENCY_BOUNDS[i] + ".0\"} ");
+        }
+        LE_LABELS[LATENCY_BOUNDS.length] = utf8(",le=\"+Inf\"} ");
+    }
+
+    private final ConcurrentMap<HystrixCommandKey, CommandCounters> counters = new ConcurrentHashMap<>();
+    /** copy-on-write array of counters in order of appearance, so a scrape doesn't need an iterator **/
+    private volatile CommandCounters[] ordered = new CommandCounters[0];
+    /** guards registration of new commands, separate from the buffer lock held while a scrape is written out **/
+    private final Object registrationLock = new Object();
+    private final OpenMetricsBuffer buffer = new OpenMetricsBuffer(64 * 1024);
+    /** encoded labels of recommendations by name, used only while rendering **/
+    private final Map<String, byte[]> commandLabels = new HashMap<>();
+    private final Map<String, byte[]> threadPoolLabels = new HashMap<>();
+    /** encoded labels of partitions by index, used only while rendering **/
+    private byte[][] partitionLabels = new byte[0][];
+    private volatile HystrixConcurrencyAdvisor concurrencyAdvisor;
+    private volatile PartitionedHystrixCommandCompletionStream partitionedStream;
+    private final Subscription subscription;
+
+    public HystrixOpenMetricsCollector(HystrixEventStream<HystrixCommandCompletion> stream) {
+        subscription = stream.observe().subscribe(this::record, e -> log.warn("Completion stream failed", e));
+    }
+
+    /**
+     * Adds recommended, average and configured concurrency of commands and thread pools
+     * calculated by the advisor to the rendered metrics as gauges
+     */
+    public void setConcurrencyAdvisor(HystrixConcurrencyAdvisor advisor) {
+        this.concurrencyAdvisor = advisor;
+    }
+
+    /**
+     * Adds the partition count, the queue depth and the number of dropped completions of every lane
+     * of the partitioned stream to the rendered metrics
+     */
+    public void setPartitionedStream(PartitionedHystrixCommandCompletionStream stream) {
+        this.partitionedStream = stream;
+    }
+
+    /**
+     * Renders all metrics into the output stream
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        render();
+        buffer.writeTo(out);
+    }
+
+    /**
+     * Renders all metrics and invokes the consumer with the rendered size before writing the bytes,
+     * which is needed e.g. to send HTTP headers with the content length
+     */
+    public synchronized void writeTo(SizedOutput output) throws IOException {
+        render();
+        buffer.writeTo(output.open(buffer.size()));
+    }
+
+    /**
+     * @return rendered metrics, intended for debugging and tests
+     */
+    public synchronized String scrape() {
+        render();
+        return buffer.toString();
+    }
+
+    @Override
+    public void close() {
+        subscription.unsubscribe();
+    }
+
+    private void record(HystrixCommandCompletion completion) {
+        HystrixCommandKey key = completion.getCommandKey();
+        CommandCounters c = counters.get(key);
+        if (c == null) {
+            c = register(key);
+        }
+        c.record(completion);
+    }
+
+    private CommandCounters register(HystrixCommandKey key) {
+        synchronized (registrationLock) {
+            CommandCounters c = counters.get(key);
+            if (c == null) {
+                HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(key);
+                HystrixCommandGroupKey group = metrics == null ? null : metrics.getCommandGroup();
+                c = new CommandCounters(key.name(), group == null ? "" : group.name());
+                CommandCounters[] copy = Arrays.copyOf(ordered, ordered.length + 1);
+                copy[copy.length - 1] = c;
+                ordered = copy;
+                counters.put(key, c);
+            }
+            return c;
+        }
+    }
+
+    private void render() {
+        CommandCounters[] commands = ordered;
+        buffer.reset();
+        buffer.append(EVENTS_HEADER);
+        for (CommandCounters c : commands) {
+            for (int i = 0; i < EVENT_TYPES.length; i++) {
+                long count = c.eventCounts.get(i);
+                if (count > 0) {
+                    buffer.append(EVENTS_NAME).append(c.labels).append(EVENT_LABEL).append(EVENT_NAMES[i]).append(count).append('\n');
+                }
+            }
+        }
+        renderHistogram(commands, EXECUTION_LATENCY_HEADER, EXECUTION_LATENCY_NAME, 0);
+        renderHistogram(commands, TOTAL_LATENCY_HEADER, TOTAL_LATENCY_NAME, 1);
+        HystrixConcurrencyAdvisor advisor = concurrencyAdvisor;
+        if (advisor != null) {
+            HystrixConcurrencyRecommendations recommendations = advisor.getRecommendations();
+            renderConcurrency(recommendations.getCommands(), COMMAND_CONCURRENCY_HEADERS, COMMAND_CONCURRENCY_NAMES,
+                    commandLabels, "command");
+            renderConcurrency(recommendations.getThreadPools(), THREAD_POOL_CONCURRENCY_HEADERS, THREAD_POOL_CONCURRENCY_NAMES,
+                    threadPoolLabels, "thread_pool");
+        }
+        PartitionedHystrixCommandCompletionStream partitioned = partitionedStream;
+        if (partitioned != null) {
+            renderPartitions(partitioned);
+        }
+        buffer.append(EOF);
+    }
+
+    private void renderHistogram(CommandCounters[] commands, byte[] header, byte[] name, int histogram) {
+        buffer.append(header);
+        int offset = histogram * CommandCounters.HISTOGRAM_SIZE;
+        for (CommandCounters c : commands) {
+            long cumulative = 0;
+            for (int i = 0; i < LE_LABELS.length; i++) {
+                cumulative += c.histograms.get(offset + i);
+                buffer.append(name).append(BUCKET_SUFFIX).append(c.labels).append(LE_LABELS[i]).append(cumulative).append('\n');
+            }
+            buffer.append(name).append(COUNT_SUFFIX).append(c.labels).append(LABELS_END).append(cumulative).append('\n');
+            buffer.append(name).append(SUM_SUFFIX).append(c.labels).append(LABELS_END)
+                    .append(c.histograms.get(offset + LE_LABELS.length)).append('\n');
+        }
+    }
+
+    private void renderConcurrency(Map<String, HystrixConcurrencyRecommendation> recommendations, byte[][] headers, byte[][] names,
+                                   Map<String, byte[]> labels, String labelName) {
+        for (int gauge = 0; gauge < names.length; gauge++) {
+            buffer.append(headers[gauge]);
+            for (HystrixConcurrencyRecommendation recommendation : recommendations.values()) {
+                int limit = recommendation.getCurrentLimit();
+                if (gauge == 2 && limit < 0) {
+                    continue;
+                }
+                byte[] label = labels.get(recommendation.getName());
+                if (label == null) {
+                    label = utf8(labelName + "=\"" + escape(recommendation.getName()) + '"');
+                    labels.put(recommendation.getName(), label);
+                }
+                buffer.append(names[gauge]).append(label).append(LABELS_END);
+                if (gauge == 0) {
+                    buffer.append(recommendation.getRecommendedConcurrency());
+                } else if (gauge == 1) {
+                    buffer.append(recommendation.getAverageConcurrency());
+                } else {
+                    buffer.append(limit);
+                }
+                buffer.append('\n');
+            }
+        }
+    }
+
+    private void renderPartitions(PartitionedHystrixCommandCompletionStream stream) {
+        int count = stream.getPartitionCount();
+        if (partitionLabels.length < count) {
+            byte[][] labels = Arrays.copyOf(partitionLabels, count);
+            for (int i = partitionLabels.length; i < count; i++) {
+                labels[i] = utf8("partition=\"" + i + '"');
+            }
+            partitionLabels = labels;
+        }
+        buffer.append(PARTITIONS_HEADER).append(PARTITIONS_NAME).append(count).append('\n');
+        buffer.append(PARTITION_QUEUE_DEPTH_HEADER);
+        for (int i = 0; i < count; i++) {
+            buffer.append(PARTITION_QUEUE_DEPTH_NAME).append(partitionLabels[i]).append(LABELS_END).append(stream.getQueueDepth(i)).append('\n');
+        }
+        buffer.append(PARTITION_DROPPED_HEADER);
+        for (int i = 0; i < count; i++) {
+            buffer.append(PARTITION_DROPPED_NAME).append(partitionLabels[i]).append(LABELS_END).append(stream.getDroppedCount(i)).append('\n');
+        }
+    }
+
+    private static byte[] gaugeHeader(String name, String help) {
+        return utf8("# TYPE " + name + " gauge\n# HELP " + name + " " + help + "\n");
+    }
+
+    private static byte[] histogramHeader(String name, String help) {
+        return utf8("# TYPE " + name + " histogram\n# UNIT " + name + " milliseconds\n# HELP " + name + " " + help + "\n");
+    }
+
+    static String escape(String labelValue) {
+        StringBuilder sb = new StringBuilder(labelValue.length());
+        for (int i = 0; i < labelValue.length(); i++) {
+            char c = labelValue.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int bucketIndex(long latency) {
+        for (int i = 0; i < LATENCY_BOUNDS.length; i++) {
+            if (latency <= LATENCY_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BOUNDS.length;
+    }
+
+    /**
+     * Output that has to know the size of rendered metrics before they are written
+     */
+    @FunctionalInterface
+    public interface SizedOutput {
+
+        OutputStream open(int size) throws IOException;
+    }
+
+    private static final class CommandCounters {
+
+        /** buckets including +Inf followed by the sum **/
+        static final int HISTOGRAM_SIZE = LATENCY_BOUNDS.length + 2;
+
+        private final byte[] labels;
+        private final AtomicLongArray eventCounts = new AtomicLongArray(EVENT_TYPES.length);
+        /** execution latency histogram followed by total latency histogram **/
+        private final AtomicLongArray histograms = new AtomicLongArray(HISTOGRAM_SIZE * 2);
+
+        CommandCounters(String command, String group) {
+            this.labels = utf8("command=\"" + escape(command) + "\",group=\"" + escape(group) + "\"");
+        }
+
+        void record(HystrixCommandCompletion completion) {
+            ExecutionResult.EventCounts counts = completion.getEventCounts();
+            for (HystrixEventType eventType : EVENT_TYPES) {
+                int count = counts.getCount(eventType);
+                if (count > 0) {
+                    eventCounts.addAndGet(eventType.ordinal(), count);
+                }
+            }
+            recordLatency(0, completion.getExecutionLatency());
+            recordLatency(HISTOGRAM_SIZE, completion.getTotalLatency());
+        }
+
+        private void recordLatency(int offset, long latency) {
+            if (latency >= 0) {
+                histograms.incrementAndGet(offset + bucketIndex(latency));
+                histograms.addAndGet(offset + HISTOGRAM_SIZE - 1, latency);
+            }
+        }
+    }
+}
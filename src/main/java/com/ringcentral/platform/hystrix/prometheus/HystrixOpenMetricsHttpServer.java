@@ -0,0 +1,56 @@
+package com.ringcentral.platform.hystrix.prometheus;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+/**
+ * Minimal HTTP endpoint based on the JDK {@link HttpServer} that serves metrics of {@link HystrixOpenMetricsCollector}
+ */
+public class HystrixOpenMetricsHttpServer implements AutoCloseable {
+
+    public static final String DEFAULT_PATH = "/metrics";
+
+    private static final Logger log = LoggerFactory.getLogger(HystrixOpenMetricsHttpServer.class);
+    private final HttpServer server;
+
+    public HystrixOpenMetricsHttpServer(HystrixOpenMetricsCollector collector, InetSocketAddress address) throws IOException {
+        this(collector, address, DEFAULT_PATH);
+    }
+
+    public HystrixOpenMetricsHttpServer(HystrixOpenMetricsCollector collector, InetSocketAddress address, String path) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext(path, exchange -> handle(collector, exchange));
+        server.start();
+        log.info("Serving Hystrix metrics on {}{}", server.getAddress(), path);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void handle(HystrixOpenMetricsCollector collector, HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", HystrixOpenMetricsCollector.CONTENT_TYPE);
+            collector.writeTo(size -> {
+                exchange.sendResponseHeaders(200, size);
+                return exchange.getResponseBody();
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to serve metrics", e);
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ringcentral.platform.hystrix.prometheus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that is reused between scrapes, numbers are written without intermediate strings
+ */
+final class OpenMetricsBuffer {
+
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private final byte[] digits = new byte[20];
+    private byte[] bytes;
+    private int size;
+
+    OpenMetricsBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    OpenMetricsBuffer append(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+        return this;
+    }
+
+    OpenMetricsBuffer append(char c) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) c;
+        return this;
+    }
+
+    OpenMetricsBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(LONG_MIN);
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        ensureCapacity(count);
+        while (count > 0) {
+            bytes[size++] = digits[--count];
+        }
+        return this;
+    }
+
+    /**
+     * Appends the value with three fractional digits
+     */
+    OpenMetricsBuffer append(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(utf8(Double.isNaN(value) ? "NaN" : value > 0 ? "+Inf" : "-Inf"));
+        }
+        long thousandths = Math.round(value * 1000);
+        if (thousandths < 0) {
+            append('-');
+            thousandths = -thousandths;
+        }
+        append(thousandths / 1000).append('.');
+        long fraction = thousandths % 1000;
+        return append((char) ('0' + fraction / 100)).append((char) ('0' + fraction / 10 % 10)).append((char) ('0' + fraction % 10));
+    }
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCollapserEvent;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AggregatedHystrixCollapserEventStreamTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Util");
+    private final static HystrixCommandKey COMMAND = HystrixCommandKey.Factory.asKey("CollapsedCommand");
+    private final static HystrixCollapserKey COLLAPSER = HystrixCollapserKey.Factory.asKey("Collapser");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testAggregatedCollapserStream() {
+        TestSubscriber<HystrixCollapserEvent> subscriber = new TestSubscriber<>();
+        new AggregatedHystrixCollapserEventStream(notifier, m -> true).observe().subscribe(subscriber);
+
+        List<Observable<Integer>> responses = IntStream.range(0, 5)
+                .mapToObj(i -> Collapser.from(COLLAPSER, GROUP_KEY, COMMAND, i).observe())
+                .collect(Collectors.toList());
+        assertEquals(10, Observable.merge(responses).reduce(0, Integer::sum).toBlocking().single().intValue());
+
+        List<HystrixCollapserEvent> events = subscriber.getOnNextEvents();
+        assertEquals(5, events.stream().filter(e -> e.getEventType() == HystrixEventType.Collapser.ADDED_TO_BATCH)
+                .mapToInt(HystrixCollapserEvent::getCount).sum());
+        assertTrue(events.stream().anyMatch(e -> e.getEventType() == HystrixEventType.Collapser.BATCH_EXECUTED));
+        assertTrue(events.stream().allMatch(e -> e.getCollapserKey() == COLLAPSER));
+        subscriber.assertNoErrors();
+    }
+
+    @Test
+    public void testAggregatedCollapserStreamWithFilter() {
+        TestSubscriber<HystrixCollapserEvent> subscriber = new TestSubscriber<>();
+        new AggregatedHystrixCollapserEventStream(notifier, m -> false).observe().subscribe(subscriber);
+
+        Collapser.from(COLLAPSER, GROUP_KEY, COMMAND, 1).observe().toBlocking().single();
+
+        subscriber.assertNoValues();
+        subscriber.assertNoErrors();
+    }
+}
@@ -8,16 +8,32 @@ import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
 import org.junit.Before;
 import org.junit.Test;
+import rx.Subscription;
 import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.netflix.hystrix.HystrixEventType.FAILURE;
 import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class AggregatedHystrixCommandCompletionStreamTest {
 
     private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Util");
     private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("Command1");
     private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("Command2");
+    private final static HystrixCommandKey BATCHED_COMMAND = HystrixCommandKey.Factory.asKey("BatchedCommand");
+    private final static HystrixCommandKey EARLY_COMMAND = HystrixCommandKey.Factory.asKey("EarlyCommand");
+    private final static HystrixCommandKey DYNAMIC_COMMAND_1 = HystrixCommandKey.Factory.asKey("DynamicCommand1");
+    private final static HystrixCommandKey DYNAMIC_COMMAND_2 = HystrixCommandKey.Factory.asKey("DynamicCommand2");
     private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
 
     @Before
@@ -64,4 +80,113 @@ public class AggregatedHystrixCommandCompletionStreamTest {
         subscriber.assertNoTerminalEvent();
     }
 
+    @Test
+    public void testLateStreamAndSubscribers() {
+        Command.from(GROUP_KEY, EARLY_COMMAND, SUCCESS, 10).execute();
+        AggregatedHystrixCommandCompletionStream stream = new AggregatedHystrixCommandCompletionStream(notifier, c -> true);
+        Command.from(GROUP_KEY, EARLY_COMMAND, SUCCESS, 10).execute();
+
+        TestSubscriber<HystrixCommandCompletion> first = new TestSubscriber<>();
+        stream.observe().filter(c -> c.getCommandKey() == EARLY_COMMAND).subscribe(first);
+        Command.from(GROUP_KEY, EARLY_COMMAND, FAILURE, 10).execute();
+        first.assertValueCount(1);
+
+        first.unsubscribe();
+        Command.from(GROUP_KEY, EARLY_COMMAND, SUCCESS, 10).execute();
+
+        TestSubscriber<HystrixCommandCompletion> second = new TestSubscriber<>();
+        stream.observe().filter(c -> c.getCommandKey() == EARLY_COMMAND).subscribe(second);
+        Command.from(GROUP_KEY, EARLY_COMMAND, SUCCESS, 10).execute();
+        second.assertValueCount(1);
+        second.assertNoErrors();
+    }
+
+    @Test
+    public void testDynamicFilterAndDetach() {
+        AggregatedHystrixCommandCompletionStream stream = new AggregatedHystrixCommandCompletionStream(notifier,
+                c -> c.getCommandKey() == DYNAMIC_COMMAND_1);
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_2, SUCCESS, 10).execute();
+        subscriber.assertValueCount(1);
+        assertEquals(Collections.singleton(DYNAMIC_COMMAND_1.name()), stream.getAttachedNames());
+
+        stream.setFilter(c -> c.getCommandKey() == DYNAMIC_COMMAND_2);
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_2, SUCCESS, 10).execute();
+        subscriber.assertValueCount(2);
+        assertEquals(DYNAMIC_COMMAND_2, subscriber.getOnNextEvents().get(1).getCommandKey());
+
+        assertTrue(stream.detach(DYNAMIC_COMMAND_2));
+        assertFalse(stream.detach(DYNAMIC_COMMAND_2));
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_2, SUCCESS, 10).execute();
+        subscriber.assertValueCount(2);
+        assertTrue(stream.getAttachedNames().isEmpty());
+
+        assertTrue(stream.attach(DYNAMIC_COMMAND_1));
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_1, SUCCESS, 10).execute();
+        subscriber.assertValueCount(3);
+
+        // late subscribers see only attached commands
+        TestSubscriber<HystrixCommandCompletion> late = new TestSubscriber<>();
+        stream.observe().subscribe(late);
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_2, SUCCESS, 10).execute();
+        late.assertValueCount(1);
+        subscriber.assertNoErrors();
+        subscriber.assertNoTerminalEvent();
+    }
+
+    @Test
+    public void testStreamComesOnceWhenAttachedDuringSubscription() throws Exception {
+        AggregatedHystrixCommandCompletionStream stream = new AggregatedHystrixCommandCompletionStream(notifier, c -> true);
+        Command.from(GROUP_KEY, DYNAMIC_COMMAND_1, SUCCESS, 0).execute();
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(stream.detach(DYNAMIC_COMMAND_1));
+                Future<Boolean> attached = executor.submit(() -> stream.attach(DYNAMIC_COMMAND_1));
+                TestSubscriber<HystrixCommandCompletion> racing = new TestSubscriber<>();
+                Subscription subscription = stream.observeStreams().flatMap(s -> s).subscribe(racing);
+                assertTrue(attached.get(10, TimeUnit.SECONDS));
+                Command.from(GROUP_KEY, DYNAMIC_COMMAND_1, SUCCESS, 0).execute();
+                racing.assertValueCount(1);
+                subscription.unsubscribe();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // every detach completes the attached stream, re-attaching doesn't duplicate completions
+        subscriber.assertValueCount(100);
+        subscriber.assertNoErrors();
+    }
+
+    @Test
+    public void testBatchedStream() {
+        TestScheduler scheduler = new TestScheduler();
+        TestSubscriber<List<HystrixCommandCompletion>> subscriber = new TestSubscriber<>();
+        new AggregatedHystrixCommandCompletionStream(notifier, c -> c.getCommandKey() == BATCHED_COMMAND)
+                .observeBatched(2, 1, TimeUnit.SECONDS, scheduler)
+                .map(HystrixEventBatch::toList)
+                .subscribe(subscriber);
+        Command.from(GROUP_KEY, BATCHED_COMMAND, SUCCESS, 10).execute();
+        Command.from(GROUP_KEY, BATCHED_COMMAND, FAILURE, 10).execute();
+        Command.from(GROUP_KEY, BATCHED_COMMAND, SUCCESS, 10).execute();
+
+        subscriber.assertValueCount(1);
+        assertEquals(2, subscriber.getOnNextEvents().get(0).size());
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        subscriber.assertValueCount(2);
+        assertEquals(1, subscriber.getOnNextEvents().get(1).size());
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        subscriber.assertValueCount(2);
+        subscriber.assertNoErrors();
+        subscriber.assertNoTerminalEvent();
+    }
+
 }
\ No newline at end of file
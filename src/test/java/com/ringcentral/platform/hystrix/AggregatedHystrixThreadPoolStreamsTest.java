@@ -0,0 +1,62 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandExecutionStarted;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+
+public class AggregatedHystrixThreadPoolStreamsTest {
+
+    private final static HystrixCommandGroupKey GROUP_1 = HystrixCommandGroupKey.Factory.asKey("ThreadPool1");
+    private final static HystrixCommandGroupKey GROUP_2 = HystrixCommandGroupKey.Factory.asKey("ThreadPool2");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("ThreadPoolCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("ThreadPoolCommand2");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testAggregatedThreadPoolStreams() {
+        TestSubscriber<HystrixCommandCompletion> completions = new TestSubscriber<>();
+        TestSubscriber<HystrixCommandExecutionStarted> starts = new TestSubscriber<>();
+        new AggregatedHystrixThreadPoolCompletionStream(notifier, m -> true).observe().subscribe(completions);
+        new AggregatedHystrixThreadPoolStartStream(notifier, m -> true).observe().subscribe(starts);
+        Command.from(GROUP_1, COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_1, COMMAND_1, FAILURE, 10).execute();
+        Command.from(GROUP_2, COMMAND_2, SUCCESS, 10).execute();
+
+        completions.assertValueCount(3);
+        starts.assertValueCount(3);
+        completions.assertNoErrors();
+        starts.assertNoErrors();
+    }
+
+    @Test
+    public void testAggregatedThreadPoolStreamWithFilter() {
+        TestSubscriber<HystrixCommandCompletion> completions = new TestSubscriber<>();
+        new AggregatedHystrixThreadPoolCompletionStream(notifier, m -> m.getThreadPoolKey().name().equals(GROUP_2.name()))
+                .observe().subscribe(completions);
+        Command.from(GROUP_1, COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_2, COMMAND_2, SUCCESS, 10).execute();
+        Command.from(GROUP_2, COMMAND_2, FAILURE, 10).execute();
+
+        completions.assertValueCount(2);
+        completions.assertNoErrors();
+        completions.assertNoTerminalEvent();
+    }
+}
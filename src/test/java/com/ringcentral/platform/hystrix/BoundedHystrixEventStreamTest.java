@@ -0,0 +1,96 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedHystrixEventStreamTest {
+
+    private final static HystrixCommandKey COMMAND = HystrixCommandKey.Factory.asKey("BoundedCommand");
+    private final static HystrixThreadPoolKey THREAD_POOL = HystrixThreadPoolKey.Factory.asKey("Bounded");
+
+    private final PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+    private final TestScheduler scheduler = new TestScheduler();
+    private final List<HystrixCommandCompletion> completions = new ArrayList<>();
+
+    @Test
+    public void testDropNewest() {
+        BoundedHystrixEventStream<HystrixCommandCompletion> stream = new BoundedHystrixEventStream<>(() -> source, OverflowStrategy.DROP_NEWEST, 4, scheduler);
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        emit(10);
+
+        subscriber.assertValueCount(0);
+        scheduler.triggerActions();
+        subscriber.assertValues(completions.get(0), completions.get(1), completions.get(2), completions.get(3));
+        assertEquals(6, stream.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOldest() {
+        BoundedHystrixEventStream<HystrixCommandCompletion> stream = new BoundedHystrixEventStream<>(() -> source, OverflowStrategy.DROP_OLDEST, 4, scheduler);
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        emit(10);
+
+        scheduler.triggerActions();
+        subscriber.assertValues(completions.get(6), completions.get(7), completions.get(8), completions.get(9));
+        assertEquals(6, stream.getDroppedCount());
+    }
+
+    @Test
+    public void testSample() {
+        BoundedHystrixEventStream<HystrixCommandCompletion> stream = new BoundedHystrixEventStream<>(() -> source, OverflowStrategy.SAMPLE, 8, scheduler);
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        emit(20);
+
+        scheduler.triggerActions();
+        List<HystrixCommandCompletion> delivered = subscriber.getOnNextEvents();
+        assertEquals(completions.subList(0, 4), delivered.subList(0, 4));
+        assertTrue(delivered.size() > 4 && delivered.size() < 8);
+        assertEquals(20 - delivered.size(), stream.getDroppedCount());
+        for (int i = 1; i < delivered.size(); i++) {
+            assertTrue(completions.indexOf(delivered.get(i - 1)) < completions.indexOf(delivered.get(i)));
+        }
+    }
+
+    @Test
+    public void testBackpressureIsHonoured() {
+        BoundedHystrixEventStream<HystrixCommandCompletion> stream = new BoundedHystrixEventStream<>(() -> source, OverflowStrategy.DROP_NEWEST, 8, scheduler);
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>(2);
+        stream.observe().subscribe(subscriber);
+        emit(5);
+
+        scheduler.triggerActions();
+        subscriber.assertValueCount(2);
+        subscriber.requestMore(10);
+        scheduler.triggerActions();
+        subscriber.assertValueCount(5);
+        assertEquals(0, stream.getDroppedCount());
+
+        source.onCompleted();
+        scheduler.triggerActions();
+        subscriber.assertCompleted();
+    }
+
+    private void emit(int count) {
+        for (int i = 0; i < count; i++) {
+            HystrixCommandCompletion completion = HystrixCommandCompletion.from(ExecutionResult.from(SUCCESS), COMMAND, THREAD_POOL);
+            completions.add(completion);
+            source.onNext(completion);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SuppressWarnings("WeakerAccess")
+public class Collapser extends HystrixCollapser<List<Integer>, Integer, Integer> {
+
+    private final HystrixCommandGroupKey groupKey;
+    private final HystrixCommandKey commandKey;
+    private final int arg;
+
+    private Collapser(HystrixCollapserKey collapserKey, HystrixCommandGroupKey groupKey, HystrixCommandKey commandKey, int arg) {
+        super(Setter.withCollapserKey(collapserKey)
+                .andScope(Scope.GLOBAL)
+                .andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter()
+                        .withTimerDelayInMilliseconds(10)
+                        .withRequestCacheEnabled(false)));
+        this.groupKey = groupKey;
+        this.commandKey = commandKey;
+        this.arg = arg;
+    }
+
+    public static Collapser from(HystrixCollapserKey collapserKey, HystrixCommandGroupKey groupKey, HystrixCommandKey commandKey, int arg) {
+        return new Collapser(collapserKey, groupKey, commandKey, arg);
+    }
+
+    @Override
+    public Integer getRequestArgument() {
+        return arg;
+    }
+
+    @Override
+    protected HystrixCommand<List<Integer>> createCommand(Collection<CollapsedRequest<Integer, Integer>> requests) {
+        List<Integer> args = requests.stream().map(CollapsedRequest::getArgument).collect(Collectors.toList());
+        return new HystrixCommand<List<Integer>>(HystrixCommand.Setter.withGroupKey(groupKey).andCommandKey(commandKey)) {
+            @Override
+            protected List<Integer> run() {
+                return args;
+            }
+        };
+    }
+
+    @Override
+    protected void mapResponseToRequests(List<Integer> batchResponse, Collection<CollapsedRequest<Integer, Integer>> requests) {
+        int i = 0;
+        for (CollapsedRequest<Integer, Integer> request : requests) {
+            request.setResponse(batchResponse.get(i++));
+        }
+    }
+}
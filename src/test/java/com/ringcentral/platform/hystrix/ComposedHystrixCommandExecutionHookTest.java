@@ -0,0 +1,180 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixInvokable;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ComposedHystrixCommandExecutionHookTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("ComposedHook");
+    private final static HystrixCommandKey COMMAND = HystrixCommandKey.Factory.asKey("ComposedHookCommand");
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+    }
+
+    @Test
+    public void testHooksAreCalledInOrderAndValuesAreChained() {
+        RecordingHook hook1 = new RecordingHook(1, 1);
+        RecordingHook hook2 = new RecordingHook(0, 10);
+        HystrixPlugins.getInstance().registerCommandExecutionHook(new ComposedHystrixCommandExecutionHook(hook1, hook2));
+
+        assertEquals(Integer.valueOf(20), Command.from(GROUP_KEY, COMMAND, SUCCESS, 0).execute());
+        for (RecordingHook hook : new RecordingHook[]{hook1, hook2}) {
+            assertEquals(1, hook.starts.get());
+            assertEquals(1, hook.executionStarts.get());
+            assertEquals(1, hook.successes.get());
+        }
+    }
+
+    @Test
+    public void testFallbackValuesAreChained() {
+        RecordingHook hook1 = new RecordingHook(1, 1);
+        RecordingHook hook2 = new RecordingHook(0, 10);
+        HystrixPlugins.getInstance().registerCommandExecutionHook(new ComposedHystrixCommandExecutionHook(hook1, hook2));
+
+        // fallback emits -1, fallback hooks make it 0, then emit hooks are applied to the fallback value too
+        assertEquals(Integer.valueOf(10), Command.from(GROUP_KEY, COMMAND, FAILURE, 0).execute());
+        assertEquals(1, hook1.executionErrors.get());
+        assertEquals(1, hook2.executionErrors.get());
+    }
+
+    @Test
+    public void testDeprecatedMethodsAreForwarded() {
+        DeprecatedHook hook1 = new DeprecatedHook(2);
+        DeprecatedHook hook2 = new DeprecatedHook(3);
+        HystrixPlugins.getInstance().registerCommandExecutionHook(new ComposedHystrixCommandExecutionHook(hook1, hook2));
+
+        assertEquals(Integer.valueOf(6), Command.from(GROUP_KEY, COMMAND, SUCCESS, 0).execute());
+        assertEquals(1, hook1.runStarts.get());
+        assertEquals(1, hook2.runStarts.get());
+    }
+
+    @Test
+    public void testFailingHookIsIsolated() {
+        RecordingHook hook = new RecordingHook(0, 10);
+        ComposedHystrixCommandExecutionHook composedHook = new ComposedHystrixCommandExecutionHook(true, new ThrowingHook(), hook);
+        HystrixInvokable<Integer> command = Command.from(GROUP_KEY, COMMAND, SUCCESS, 0);
+        composedHook.onStart(command);
+        assertEquals(Integer.valueOf(10), composedHook.onEmit(command, 1));
+        composedHook.onSuccess(command);
+
+        assertEquals(1, hook.starts.get());
+        assertEquals(1, hook.successes.get());
+        DelegateStatistics failed = composedHook.getDelegateStatistics().get(0);
+        DelegateStatistics succeeded = composedHook.getDelegateStatistics().get(1);
+        assertEquals(3, failed.getInvocationCount());
+        assertEquals(2, failed.getFailureCount());
+        assertEquals(3, succeeded.getInvocationCount());
+        assertEquals(0, succeeded.getFailureCount());
+    }
+
+    private static class RecordingHook extends HystrixCommandExecutionHook {
+
+        private final int add;
+        private final int multiply;
+        private final AtomicInteger starts = new AtomicInteger();
+        private final AtomicInteger executionStarts = new AtomicInteger();
+        private final AtomicInteger executionErrors = new AtomicInteger();
+        private final AtomicInteger successes = new AtomicInteger();
+
+        RecordingHook(int add, int multiply) {
+            this.add = add;
+            this.multiply = multiply;
+        }
+
+        @Override
+        public <T> void onStart(HystrixInvokable<T> commandInstance) {
+            starts.incrementAndGet();
+        }
+
+        @Override
+        public <T> void onExecutionStart(HystrixInvokable<T> commandInstance) {
+            executionStarts.incrementAndGet();
+        }
+
+        @Override
+        public <T> Exception onExecutionError(HystrixInvokable<T> commandInstance, Exception e) {
+            executionErrors.incrementAndGet();
+            return e;
+        }
+
+        @Override
+        public <T> T onEmit(HystrixInvokable<T> commandInstance, T value) {
+            return transform(value);
+        }
+
+        @Override
+        public <T> T onFallbackEmit(HystrixInvokable<T> commandInstance, T value) {
+            return transform(value);
+        }
+
+        @Override
+        public <T> void onSuccess(HystrixInvokable<T> commandInstance) {
+            successes.incrementAndGet();
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T transform(T value) {
+            return (T) Integer.valueOf(((Integer) value + add) * multiply);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class DeprecatedHook extends HystrixCommandExecutionHook {
+
+        private final int multiply;
+        private final AtomicInteger runStarts = new AtomicInteger();
+
+        DeprecatedHook(int multiply) {
+            this.multiply = multiply;
+        }
+
+        @Override
+        public <T> void onRunStart(HystrixCommand<T> commandInstance) {
+            runStarts.incrementAndGet();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T onRunSuccess(HystrixCommand<T> commandInstance, T response) {
+            return (T) Integer.valueOf((Integer) response * multiply);
+        }
+    }
+
+    private static class ThrowingHook extends HystrixCommandExecutionHook {
+
+        @Override
+        public <T> void onStart(HystrixInvokable<T> commandInstance) {
+            throw new IllegalStateException("induced failure");
+        }
+
+        @Override
+        public <T> T onEmit(HystrixInvokable<T> commandInstance, T value) {
+            throw new IllegalStateException("induced failure");
+        }
+
+        @Override
+        public <T> Exception onError(HystrixInvokable<T> commandInstance, HystrixRuntimeException.FailureType failureType, Exception e) {
+            throw new IllegalStateException("induced failure");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.FALLBACK_SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ComposedHystrixEventNotifierTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("ComposedNotifier");
+    private final static HystrixCommandKey COMMAND = HystrixCommandKey.Factory.asKey("ComposedNotifierCommand");
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+    }
+
+    @Test
+    public void testEventsArePassedToAllNotifiers() {
+        RecordingNotifier notifier1 = new RecordingNotifier();
+        RecordingNotifier notifier2 = new RecordingNotifier();
+        HystrixPlugins.getInstance().registerEventNotifier(new ComposedHystrixEventNotifier(notifier1, notifier2));
+        Command.from(GROUP_KEY, COMMAND, SUCCESS, 0).execute();
+        Command.from(GROUP_KEY, COMMAND, FAILURE, 0).execute();
+        // Hystrix marks command execution only for successful runs, after the result is emitted
+        awaitExecutions(notifier1, 1);
+        awaitExecutions(notifier2, 1);
+
+        for (RecordingNotifier notifier : new RecordingNotifier[]{notifier1, notifier2}) {
+            assertTrue(notifier.events.contains(SUCCESS));
+            assertTrue(notifier.events.contains(FAILURE));
+            assertTrue(notifier.events.contains(FALLBACK_SUCCESS));
+            assertEquals(1, notifier.executions.size());
+        }
+    }
+
+    @Test
+    public void testFailingNotifierIsIsolated() {
+        RecordingNotifier notifier = new RecordingNotifier();
+        ComposedHystrixEventNotifier composedNotifier = new ComposedHystrixEventNotifier(true, new ThrowingNotifier(), notifier);
+        composedNotifier.markEvent(SUCCESS, COMMAND);
+        composedNotifier.markEvent(FALLBACK_SUCCESS, COMMAND);
+        composedNotifier.markCommandExecution(COMMAND, HystrixCommandProperties.ExecutionIsolationStrategy.THREAD, 1,
+                Collections.singletonList(SUCCESS));
+
+        assertEquals(Arrays.asList(SUCCESS, FALLBACK_SUCCESS), notifier.events);
+        assertEquals(1, notifier.executions.size());
+        DelegateStatistics failed = composedNotifier.getDelegateStatistics().get(0);
+        DelegateStatistics succeeded = composedNotifier.getDelegateStatistics().get(1);
+        assertEquals(ThrowingNotifier.class.getName(), failed.getName());
+        assertEquals(3, failed.getInvocationCount());
+        assertEquals(3, failed.getFailureCount());
+        assertEquals(3, succeeded.getInvocationCount());
+        assertEquals(0, succeeded.getFailureCount());
+    }
+
+    @Test
+    public void testCallsAreNotCountedWithoutTiming() {
+        ComposedHystrixEventNotifier composedNotifier = new ComposedHystrixEventNotifier(new ThrowingNotifier(), new RecordingNotifier());
+        composedNotifier.markEvent(SUCCESS, COMMAND);
+
+        assertEquals(0, composedNotifier.getDelegateStatistics().get(0).getInvocationCount());
+        assertEquals(1, composedNotifier.getDelegateStatistics().get(0).getFailureCount());
+        assertEquals(0, composedNotifier.getDelegateStatistics().get(1).getInvocationCount());
+    }
+
+    private static void awaitExecutions(RecordingNotifier notifier, int count) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (notifier.executions.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+    }
+
+    private static class RecordingNotifier extends HystrixEventNotifier {
+
+        private final List<HystrixEventType> events = new CopyOnWriteArrayList<>();
+        private final List<List<HystrixEventType>> executions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void markEvent(HystrixEventType eventType, HystrixCommandKey key) {
+            events.add(eventType);
+        }
+
+        @Override
+        public void markCommandExecution(HystrixCommandKey key, HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy,
+                                         int duration, List<HystrixEventType> eventsDuringExecution) {
+            executions.add(eventsDuringExecution);
+        }
+    }
+
+    private static class ThrowingNotifier extends HystrixEventNotifier {
+
+        @Override
+        public void markEvent(HystrixEventType eventType, HystrixCommandKey key) {
+            throw new IllegalStateException("induced failure");
+        }
+
+        @Override
+        public void markCommandExecution(HystrixCommandKey key, HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy,
+                                         int duration, List<HystrixEventType> eventsDuringExecution) {
+            throw new IllegalStateException("induced failure");
+        }
+    }
+}
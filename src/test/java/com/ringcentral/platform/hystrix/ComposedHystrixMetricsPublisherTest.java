@@ -7,9 +7,16 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class ComposedHystrixMetricsPublisherTest {
 
@@ -31,6 +38,79 @@ public class ComposedHystrixMetricsPublisherTest {
 
     }
 
+    @Test
+    public void testNoOpPublisherWithoutDelegates() {
+        ComposedHystrixMetricsPublisher composedPublisher = new ComposedHystrixMetricsPublisher();
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("NoDelegatesKey");
+        HystrixMetricsPublisherCommand publisher = composedPublisher.getMetricsPublisherForCommand(key, null, null, null, null);
+
+        assertSame(publisher, composedPublisher.getMetricsPublisherForCommand(key, null, null, null, null));
+        publisher.initialize();
+        assertTrue(composedPublisher.getDelegateStatistics().isEmpty());
+    }
+
+    @Test
+    public void testAsyncInitialization() throws InterruptedException {
+        TestHystrixMetricsPublisher publisher1 = new TestHystrixMetricsPublisher();
+        TestHystrixMetricsPublisher publisher2 = new TestHystrixMetricsPublisher();
+        List<Runnable> tasks = new ArrayList<>();
+        ComposedHystrixMetricsPublisher composedPublisher = new ComposedHystrixMetricsPublisher(tasks::add,
+                publisher1, new FailingPublisher(), publisher2);
+
+        composedPublisher.getMetricsPublisherForCommand(TestCommandKey.COMMAND_A, null, null, null, null).initialize();
+        composedPublisher.getMetricsPublisherForThreadPool(TestThreadPoolKey.THREAD_POOL_A, null, null).initialize();
+
+        // nothing is initialized on the caller thread
+        assertEquals(0, publisher1.commandCounter.get());
+        assertEquals(6, tasks.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        tasks.forEach(executor::execute);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, publisher1.commandCounter.get());
+        assertEquals(1, publisher2.commandCounter.get());
+        assertEquals(1, publisher1.threadCounter.get());
+        assertEquals(1, publisher2.threadCounter.get());
+    }
+
+    @Test
+    public void testRejectedInitializationDoesNotFail() {
+        TestHystrixMetricsPublisher publisher = new TestHystrixMetricsPublisher();
+        ComposedHystrixMetricsPublisher composedPublisher = new ComposedHystrixMetricsPublisher(r -> {
+            throw new RejectedExecutionException();
+        }, publisher);
+
+        composedPublisher.getMetricsPublisherForCommand(TestCommandKey.COMMAND_A, null, null, null, null).initialize();
+        assertEquals(0, publisher.commandCounter.get());
+    }
+
+    @Test
+    public void testFailingDelegateIsIsolated() {
+        TestHystrixMetricsPublisher publisher1 = new TestHystrixMetricsPublisher();
+        TestHystrixMetricsPublisher publisher2 = new TestHystrixMetricsPublisher();
+        ComposedHystrixMetricsPublisher composedPublisher = new ComposedHystrixMetricsPublisher(
+                publisher1, new FailingPublisher(), publisher2, new ThrowingPublisher());
+
+        HystrixMetricsPublisherCommand command = composedPublisher.getMetricsPublisherForCommand(TestCommandKey.COMMAND_A, null, null, null, null);
+        command.initialize();
+        command.initialize();
+
+        assertEquals(2, publisher1.commandCounter.get());
+        assertEquals(2, publisher2.commandCounter.get());
+
+        List<DelegateStatistics> statistics = composedPublisher.getDelegateStatistics();
+        assertEquals(4, statistics.size());
+        assertEquals(FailingPublisher.class.getName(), statistics.get(1).getName());
+        // one getMetricsPublisherForCommand and two initialize calls
+        assertEquals(3, statistics.get(0).getInvocationCount());
+        assertEquals(0, statistics.get(0).getFailureCount());
+        assertEquals(2, statistics.get(1).getFailureCount());
+        assertEquals(1, statistics.get(3).getInvocationCount());
+        assertEquals(1, statistics.get(3).getFailureCount());
+    }
+
     private void testSingleInitializePerKey(TestHystrixMetricsPublisher publisher) {
         ArrayList<Thread> threads = new ArrayList<>();
         for (int i = 0; i < 20; i++) {
@@ -94,6 +174,31 @@ public class ComposedHystrixMetricsPublisherTest {
         COLLAPSER_A
     }
 
+    private static class FailingPublisher extends HystrixMetricsPublisher {
+
+        @Override
+        public HystrixMetricsPublisherCommand getMetricsPublisherForCommand(HystrixCommandKey commandKey, HystrixCommandGroupKey commandOwner, HystrixCommandMetrics metrics, HystrixCircuitBreaker circuitBreaker, HystrixCommandProperties properties) {
+            return () -> {
+                throw new IllegalStateException("induced failure");
+            };
+        }
+
+        @Override
+        public HystrixMetricsPublisherThreadPool getMetricsPublisherForThreadPool(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolMetrics metrics, HystrixThreadPoolProperties properties) {
+            return () -> {
+                throw new IllegalStateException("induced failure");
+            };
+        }
+    }
+
+    private static class ThrowingPublisher extends HystrixMetricsPublisher {
+
+        @Override
+        public HystrixMetricsPublisherCommand getMetricsPublisherForCommand(HystrixCommandKey commandKey, HystrixCommandGroupKey commandOwner, HystrixCommandMetrics metrics, HystrixCircuitBreaker circuitBreaker, HystrixCommandProperties properties) {
+            throw new IllegalStateException("induced failure");
+        }
+    }
+
     private static class DummyPublisher extends HystrixMetricsPublisher {
 
         private HystrixMetricsPublisherCommand commandToReturn;
@@ -0,0 +1,204 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.FALLBACK_SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixAnomalyDetectorTest {
+
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("AnomalyCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("AnomalyCommand2");
+    private final static HystrixThreadPoolKey THREAD_POOL = HystrixThreadPoolKey.Factory.asKey("Anomaly");
+
+    private final PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+    private final Random random = new Random(1);
+
+    @Test
+    public void testLatencyAnomaly() {
+        try (HystrixAnomalyDetector detector = new HystrixAnomalyDetector(() -> source)) {
+            TestSubscriber<HystrixAnomalyEvent> subscriber = new TestSubscriber<>();
+            TestSubscriber<HystrixAnomalyEvent> tailSubscriber = new TestSubscriber<>();
+            detector.observe().filter(e -> e.getType() == HystrixAnomalyEvent.Type.LATENCY).subscribe(subscriber);
+            detector.observe().filter(e -> e.getType() == HystrixAnomalyEvent.Type.TAIL_LATENCY).subscribe(tailSubscriber);
+            for (int i = 0; i < 1000; i++) {
+                emit(COMMAND_1, SUCCESS, 8 + random.nextInt(5));
+                emit(COMMAND_2, SUCCESS, 8 + random.nextInt(5));
+            }
+            tailSubscriber.assertValueCount(0);
+            subscriber.assertValueCount(0);
+
+            for (int i = 0; i < 20; i++) {
+                emit(COMMAND_1, SUCCESS, 80 + random.nextInt(5));
+                emit(COMMAND_2, SUCCESS, 8 + random.nextInt(5));
+            }
+            subscriber.assertValueCount(1);
+            HystrixAnomalyEvent started = subscriber.getOnNextEvents().get(0);
+            assertEquals(COMMAND_1, started.getCommandKey());
+            assertEquals(HystrixAnomalyEvent.Type.LATENCY, started.getType());
+            assertTrue(started.isStarted());
+            assertTrue(started.getRecent() > 3 * started.getBaseline());
+            assertTrue(started.getBaselineQuantile() >= 10 && started.getBaselineQuantile() < 80);
+            // the slow completions are also far in the tail
+            tailSubscriber.assertValueCount(1);
+            assertEquals(COMMAND_1, tailSubscriber.getOnNextEvents().get(0).getCommandKey());
+
+            for (int i = 0; i < 50; i++) {
+                emit(COMMAND_1, SUCCESS, 8 + random.nextInt(5));
+            }
+            subscriber.assertValueCount(2);
+            HystrixAnomalyEvent ended = subscriber.getOnNextEvents().get(1);
+            assertEquals(HystrixAnomalyEvent.Type.LATENCY, ended.getType());
+            assertFalse(ended.isStarted());
+        }
+    }
+
+    @Test
+    public void testTailLatencyAnomalyWithUnchangedMean() {
+        try (HystrixAnomalyDetector detector = new HystrixAnomalyDetector(() -> source)) {
+            TestSubscriber<HystrixAnomalyEvent> subscriber = new TestSubscriber<>();
+            detector.observe().subscribe(subscriber);
+            for (int i = 0; i < 2000; i++) {
+                emit(COMMAND_1, SUCCESS, 8 + random.nextInt(5));
+            }
+            subscriber.assertValueCount(0);
+
+            // every 20th completion is slow, the others got a bit faster, so the mean stays about the same
+            for (int i = 0; i < 400; i++) {
+                emit(COMMAND_1, SUCCESS, i % 20 == 0 ? 40 : 8 + random.nextInt(3));
+            }
+            subscriber.assertValueCount(1);
+            HystrixAnomalyEvent started = subscriber.getOnNextEvents().get(0);
+            assertEquals(HystrixAnomalyEvent.Type.TAIL_LATENCY, started.getType());
+            assertTrue(started.isStarted());
+            assertTrue(started.getRecent() > 3 * started.getBaseline());
+            assertTrue(started.getBaselineQuantile() >= 11 && started.getBaselineQuantile() < 40);
+
+            for (int i = 0; i < 1000; i++) {
+                emit(COMMAND_1, SUCCESS, 8 + random.nextInt(3));
+            }
+            subscriber.assertValueCount(2);
+            assertFalse(subscriber.getOnNextEvents().get(1).isStarted());
+        }
+    }
+
+    @Test
+    public void testErrorRateAnomaly() {
+        try (HystrixAnomalyDetector detector = new HystrixAnomalyDetector(() -> source, 3, 3, 200)) {
+            TestSubscriber<HystrixAnomalyEvent> subscriber = new TestSubscriber<>();
+            detector.observe().subscribe(subscriber);
+            for (int i = 0; i < 1000; i++) {
+                emit(COMMAND_1, i % 100 == 0 ? FAILURE : SUCCESS, 10);
+            }
+            subscriber.assertValueCount(0);
+
+            for (int i = 0; i < 20; i++) {
+                emit(COMMAND_1, i % 2 == 0 ? FAILURE : SUCCESS, 10);
+            }
+            subscriber.assertValueCount(1);
+            HystrixAnomalyEvent started = subscriber.getOnNextEvents().get(0);
+            assertEquals(HystrixAnomalyEvent.Type.ERROR_RATE, started.getType());
+            assertTrue(started.isStarted());
+            assertTrue(started.getRecent() > HystrixAnomalyDetector.MIN_ERROR_RATE * 3);
+        }
+    }
+
+    @Test
+    public void testNothingIsReportedDuringWarmUp() {
+        try (HystrixAnomalyDetector detector = new HystrixAnomalyDetector(() -> source, 3, 3, 200)) {
+            TestSubscriber<HystrixAnomalyEvent> subscriber = new TestSubscriber<>();
+            detector.observe().subscribe(subscriber);
+            for (int i = 0; i < 100; i++) {
+                emit(COMMAND_1, SUCCESS, 10);
+            }
+            for (int i = 0; i < 100; i++) {
+                emit(COMMAND_1, FAILURE, 100);
+            }
+            subscriber.assertValueCount(0);
+        }
+    }
+
+    @Test
+    public void testTransitionsOfCommandAreEmittedInOrder() throws Exception {
+        try (HystrixAnomalyDetector detector = new HystrixAnomalyDetector(() -> source, 3, 3, 10)) {
+            Map<HystrixAnomalyEvent.Type, Boolean> active = new EnumMap<>(HystrixAnomalyEvent.Type.class);
+            AtomicInteger transitions = new AtomicInteger();
+            AtomicInteger outOfOrder = new AtomicInteger();
+            // the stream is serialized, so the subscriber is never called concurrently
+            detector.observe().subscribe(event -> {
+                transitions.incrementAndGet();
+                if (active.getOrDefault(event.getType(), false) == event.isStarted()) {
+                    outOfOrder.incrementAndGet();
+                }
+                active.put(event.getType(), event.isStarted());
+            });
+            int threads = 4;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50_000; i++) {
+                        // bursts of failures and slow completions keep starting and ending anomalies
+                        boolean burst = (i / 50) % 4 == 0;
+                        emit(COMMAND_1, burst ? FAILURE : SUCCESS, burst ? 100 : 10);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            assertTrue(transitions.get() > 100);
+            assertEquals(0, outOfOrder.get());
+        }
+    }
+
+    @Test
+    public void testQuantileEstimate() {
+        P2Quantile quantile = new P2Quantile(0.99);
+        assertEquals(0, quantile.get(), 0);
+        for (int i = 0; i < 100_000; i++) {
+            quantile.add(random.nextInt(10_000));
+        }
+        assertEquals(9900, quantile.get(), 100);
+
+        P2Quantile median = new P2Quantile(0.5);
+        median.add(3);
+        median.add(1);
+        median.add(2);
+        assertEquals(2, median.get(), 0);
+    }
+
+    private void emit(HystrixCommandKey key, HystrixEventType eventType, int latency) {
+        ExecutionResult result = eventType == SUCCESS ? ExecutionResult.from(SUCCESS) : ExecutionResult.from(eventType, FALLBACK_SUCCESS);
+        source.onNext(HystrixCommandCompletion.from(result.setExecutionLatency(latency), key, THREAD_POOL));
+    }
+}
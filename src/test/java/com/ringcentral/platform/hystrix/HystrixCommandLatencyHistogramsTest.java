@@ -0,0 +1,49 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixCommandLatencyHistogramsTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Util");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("HistogramCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("HistogramCommand2");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testLatencyIsRecordedPerCommand() {
+        HystrixCommandLatencyHistograms histograms = new HystrixCommandLatencyHistograms(
+                new AggregatedHystrixCommandCompletionStream(notifier, m -> true));
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_KEY, COMMAND_1, FAILURE, 10).execute();
+        Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 50).execute();
+
+        assertEquals(2, histograms.getExecutionLatency(COMMAND_1).getTotalCount());
+        assertEquals(2, histograms.getTotalLatency(COMMAND_1).getTotalCount());
+        assertTrue(histograms.getExecutionLatency(COMMAND_2).getValueAtPercentile(50) >= 50);
+        assertEquals(3, histograms.getExecutionLatency().getTotalCount());
+        assertEquals(3, histograms.getTotalLatency().getTotalCount());
+
+        histograms.close();
+        Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 10).execute();
+        assertEquals(1, histograms.getExecutionLatency(COMMAND_2).getTotalCount());
+    }
+}
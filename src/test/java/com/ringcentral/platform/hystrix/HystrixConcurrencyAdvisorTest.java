@@ -0,0 +1,141 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixConcurrencyAdvisorTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Advisor");
+    private final static HystrixThreadPoolKey THREAD_POOL = HystrixThreadPoolKey.Factory.asKey("Advisor");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("AdvisorCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("AdvisorCommand2");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+    private final PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testRecommendations() {
+        try (HystrixConcurrencyAdvisor advisor = new HystrixConcurrencyAdvisor(notifier, () -> source, 1, TimeUnit.SECONDS, scheduler)) {
+            TestSubscriber<HystrixConcurrencyRecommendations> subscriber = new TestSubscriber<>();
+            advisor.observe().subscribe(subscriber);
+            // creates the thread pool, so the advisor is notified about it
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+            assertNull(advisor.getRecommendation(COMMAND_1));
+
+            for (int second = 0; second < 20; second++) {
+                emit(COMMAND_1, 20, 100);
+                emit(COMMAND_2, 50, 40);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+
+            subscriber.assertValueCount(20);
+            HystrixConcurrencyRecommendation command1 = advisor.getRecommendation(COMMAND_1);
+            assertEquals(100, command1.getThroughput(), 0.001);
+            assertEquals(20, command1.getMeanLatency(), 0.001);
+            assertEquals(20, command1.getNoLoadLatency(), 0.001);
+            assertEquals(2, command1.getAverageConcurrency(), 0.001);
+            assertTrue(command1.getRecommendedConcurrency() >= 2 && command1.getRecommendedConcurrency() <= 5);
+            HystrixConcurrencyRecommendation command2 = advisor.getRecommendation(COMMAND_2);
+            assertEquals(2, command2.getAverageConcurrency(), 0.001);
+
+            HystrixConcurrencyRecommendation pool = advisor.getRecommendation(THREAD_POOL);
+            assertEquals(140, pool.getThroughput(), 0.001);
+            assertEquals(4, pool.getAverageConcurrency(), 0.001);
+            assertEquals(command1.getRecommendedConcurrency() + command2.getRecommendedConcurrency(), pool.getRecommendedConcurrency());
+            assertEquals(10, pool.getCurrentLimit());
+        }
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyGrows() {
+        try (HystrixConcurrencyAdvisor advisor = new HystrixConcurrencyAdvisor(notifier, () -> source, 1, TimeUnit.SECONDS, scheduler)) {
+            for (int second = 0; second < 5; second++) {
+                emit(COMMAND_1, 10, 1000);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+            int before = advisor.getRecommendation(COMMAND_1).getRecommendedConcurrency();
+            assertTrue(before > 10);
+
+            // throughput drops because the dependency got slow, queueing more requests won't help
+            for (int second = 0; second < 5; second++) {
+                emit(COMMAND_1, 40, 50);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+            HystrixConcurrencyRecommendation after = advisor.getRecommendation(COMMAND_1);
+            assertEquals(10, after.getNoLoadLatency(), 0.001);
+            assertTrue(after.getRecommendedConcurrency() < before);
+        }
+    }
+
+    @Test
+    public void testIdleCommandStopsContributingToThreadPool() {
+        try (HystrixConcurrencyAdvisor advisor = new HystrixConcurrencyAdvisor(notifier, () -> source, 1, TimeUnit.SECONDS, scheduler)) {
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+            for (int second = 0; second < 10; second++) {
+                emit(COMMAND_1, 20, 1000);
+                emit(COMMAND_2, 20, 100);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+            int busy = advisor.getRecommendation(THREAD_POOL).getRecommendedConcurrency();
+            assertTrue(busy > 20);
+
+            // the first command stopped, the pool is recommended what the second one needs
+            emit(COMMAND_2, 20, 100);
+            scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            HystrixConcurrencyRecommendation idle = advisor.getRecommendation(COMMAND_1);
+            assertEquals(0, idle.getThroughput(), 0);
+            assertEquals(0, idle.getAverageConcurrency(), 0);
+            assertEquals(20, idle.getNoLoadLatency(), 0.001);
+            HystrixConcurrencyRecommendation pool = advisor.getRecommendation(THREAD_POOL);
+            assertEquals(100, pool.getThroughput(), 0.001);
+            assertEquals(2, pool.getAverageConcurrency(), 0.001);
+            assertTrue(pool.getRecommendedConcurrency() < busy);
+
+            for (int second = 0; second < HystrixConcurrencyAdvisor.IDLE_INTERVALS; second++) {
+                emit(COMMAND_2, 20, 100);
+                scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            }
+            assertNull(advisor.getRecommendation(COMMAND_1));
+            assertEquals(advisor.getRecommendation(COMMAND_2).getRecommendedConcurrency(),
+                    advisor.getRecommendation(THREAD_POOL).getRecommendedConcurrency());
+
+            // the command is reported again as soon as it has completions
+            emit(COMMAND_1, 20, 100);
+            scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            assertEquals(100, advisor.getRecommendation(COMMAND_1).getThroughput(), 0.001);
+        }
+    }
+
+    private void emit(HystrixCommandKey key, int latency, int count) {
+        ExecutionResult result = ExecutionResult.from(SUCCESS).setExecutedInThread().setExecutionLatency(latency);
+        for (int i = 0; i < count; i++) {
+            source.onNext(HystrixCommandCompletion.from(result, key, THREAD_POOL));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.TestScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixHealthSnapshotServiceTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Health");
+    private final static HystrixCommandKey EARLY_COMMAND = HystrixCommandKey.Factory.asKey("HealthEarlyCommand");
+    private final static HystrixCommandKey FAILING_COMMAND = HystrixCommandKey.Factory.asKey("HealthFailingCommand");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testSnapshotIsRefreshedOnTick() throws Exception {
+        Command.from(GROUP_KEY, EARLY_COMMAND, SUCCESS, 0).execute();
+        try (HystrixHealthSnapshotService service = new HystrixHealthSnapshotService(notifier, 1, TimeUnit.SECONDS, scheduler)) {
+            HystrixHealthSnapshot initial = service.getSnapshot();
+            assertNotNull(initial.get(EARLY_COMMAND));
+            assertEquals(GROUP_KEY, initial.get(EARLY_COMMAND).getCommandGroupKey());
+            assertFalse(initial.get(EARLY_COMMAND).isCircuitOpen());
+
+            for (int i = 0; i < 5; i++) {
+                Command.from(GROUP_KEY, FAILING_COMMAND, FAILURE, 0).execute();
+            }
+            // health counts of commands are refreshed every 100 ms
+            Thread.sleep(300);
+            assertSame(initial, service.getSnapshot());
+            assertNull(initial.get(FAILING_COMMAND));
+
+            scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+            HystrixHealthSnapshot snapshot = service.getSnapshot();
+            HystrixCommandHealth health = snapshot.get(FAILING_COMMAND);
+            assertNotNull(health);
+            assertEquals(100, health.getErrorPercentage());
+            assertTrue(health.getErrorCount() > 0);
+            assertTrue(health.isCircuitOpen());
+            assertEquals(0, health.getConcurrentExecutionCount());
+            assertEquals(1, snapshot.getOpenCircuitCount());
+            assertEquals(2, snapshot.getCommands().size());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class HystrixKeyDictionaryTest {
+
+    @Test
+    public void testIdsAreDense() {
+        HystrixKeyDictionary<HystrixCommandKey> dictionary = new HystrixKeyDictionary<>();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, dictionary.idOf(HystrixCommandKey.Factory.asKey("DictionaryCommand" + i)));
+        }
+        assertEquals(100, dictionary.size());
+        assertEquals(42, dictionary.idOf(HystrixCommandKey.Factory.asKey("DictionaryCommand42")));
+        assertEquals(42, dictionary.getId(HystrixCommandKey.Factory.asKey("DictionaryCommand42")));
+        assertSame(HystrixCommandKey.Factory.asKey("DictionaryCommand7"), dictionary.getKey(7));
+        assertEquals(100, dictionary.size());
+    }
+
+    @Test
+    public void testUnknownKey() {
+        HystrixKeyDictionary<HystrixCommandKey> dictionary = new HystrixKeyDictionary<>();
+        assertEquals(-1, dictionary.getId(HystrixCommandKey.Factory.asKey("UnknownDictionaryCommand")));
+        assertNull(dictionary.getKey(0));
+        assertNull(dictionary.getKey(-1));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    public void testKeysAreReadableWhileDictionaryGrows() throws Exception {
+        HystrixKeyDictionary<HystrixCommandKey> dictionary = new HystrixKeyDictionary<>();
+        List<HystrixCommandKey> keys = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            keys.add(HystrixCommandKey.Factory.asKey("GrowingDictionaryCommand" + i));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        int size = dictionary.size();
+                        if (size > 0) {
+                            assertNotNull(dictionary.getKey(size - 1));
+                        }
+                    }
+                }));
+            }
+            keys.forEach(dictionary::idOf);
+            done.set(true);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+        assertEquals(keys.size(), dictionary.size());
+        assertSame(keys.get(keys.size() - 1), dictionary.getKey(keys.size() - 1));
+    }
+}
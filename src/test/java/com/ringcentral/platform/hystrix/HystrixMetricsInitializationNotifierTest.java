@@ -1,10 +1,17 @@
 package com.ringcentral.platform.hystrix;
 
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserMetrics;
 import com.netflix.hystrix.HystrixCommand;
 import com.netflix.hystrix.HystrixCommandGroupKey;
 import com.netflix.hystrix.HystrixCommandKey;
 import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
 import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisher;
+import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherFactory;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -13,6 +20,8 @@ import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -21,6 +30,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.netflix.hystrix.HystrixEventType.FAILURE;
 import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -74,6 +84,26 @@ public class HystrixMetricsInitializationNotifierTest {
         });
     }
 
+    @Test
+    public void checkThreadPoolAndCollapserListenersAreNotified() {
+        HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+        HystrixThreadPoolMetricsInitializationListener threadPoolListener = mock(HystrixThreadPoolMetricsInitializationListener.class);
+        HystrixCollapserMetricsInitializationListener collapserListener = mock(HystrixCollapserMetricsInitializationListener.class);
+        notifier.addThreadPoolListener(threadPoolListener);
+        notifier.addCollapserListener(collapserListener);
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+
+        HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("NotifierThreadPool");
+        HystrixCollapserKey collapserKey = HystrixCollapserKey.Factory.asKey("NotifierCollapser");
+        for (int i = 0; i < 3; i++) {
+            HystrixMetricsPublisherFactory.createOrRetrievePublisherForThreadPool(threadPoolKey, null, null);
+            HystrixMetricsPublisherFactory.createOrRetrievePublisherForCollapser(collapserKey, null, null);
+        }
+
+        verify(threadPoolListener, times(1)).initialize((HystrixThreadPoolMetrics) any());
+        verify(collapserListener, times(1)).initialize((HystrixCollapserMetrics) any());
+    }
+
     private static HystrixCommandMetrics withKey(HystrixCommandKey key) {
         return argThat(new HystrixCommandMetricsMatcher(key, null));
     }
@@ -141,4 +171,38 @@ public class HystrixMetricsInitializationNotifierTest {
             throw exception.get();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void checkNothingIsAllocatedWithoutListeners() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        HystrixMetricsInitializationNotifier emptyNotifier = new HystrixMetricsInitializationNotifier();
+        ComposedHystrixMetricsPublisher emptyPublisher = new ComposedHystrixMetricsPublisher();
+        HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("NoAllocationPool");
+        HystrixCollapserKey collapserKey = HystrixCollapserKey.Factory.asKey("NoAllocationCollapser");
+        long threadId = Thread.currentThread().getId();
+
+        // warm up, so the measured loop is compiled
+        publishMany(emptyNotifier, emptyPublisher, threadPoolKey, collapserKey);
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        publishMany(emptyNotifier, emptyPublisher, threadPoolKey, collapserKey);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        // a few bytes may be allocated by the measurement itself
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void publishMany(HystrixMetricsPublisher notifier, HystrixMetricsPublisher publisher,
+                                    HystrixThreadPoolKey threadPoolKey, HystrixCollapserKey collapserKey) {
+        for (int i = 0; i < 100_000; i++) {
+            notifier.getMetricsPublisherForCommand(COMMAND_1, GROUP_KEY, null, null, null).initialize();
+            notifier.getMetricsPublisherForThreadPool(threadPoolKey, null, null).initialize();
+            notifier.getMetricsPublisherForCollapser(collapserKey, null, null).initialize();
+            publisher.getMetricsPublisherForCommand(COMMAND_1, GROUP_KEY, null, null, null).initialize();
+            publisher.getMetricsPublisherForThreadPool(threadPoolKey, null, null).initialize();
+            publisher.getMetricsPublisherForCollapser(collapserKey, null, null).initialize();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.RESPONSE_FROM_CACHE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixRequestSummaryStreamTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("RequestSummaryGroup");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("RequestSummaryCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("RequestSummaryCommand2");
+
+    private final List<HystrixRequestSummary> summaries = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+    }
+
+    @Test
+    public void testRequestIsSummarized() {
+        new HystrixRequestSummaryStream(1).observe().subscribe(summary -> summaries.add(summary.copy()));
+        long start = System.currentTimeMillis();
+        HystrixRequestContext context = HystrixRequestContext.initializeContext();
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 20).execute();
+        Command.from(GROUP_KEY, COMMAND_1, RESPONSE_FROM_CACHE, 0).execute();
+        Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 20).execute();
+        Command.from(GROUP_KEY, COMMAND_2, FAILURE, 0).execute();
+        long duration = System.currentTimeMillis() - start;
+        context.shutdown();
+
+        assertEquals(1, summaries.size());
+        HystrixRequestSummary summary = summaries.get(0);
+        assertEquals(2, summary.getCommandCount());
+        assertSame(COMMAND_1, summary.getCommandKey(0));
+        assertSame(COMMAND_2, summary.getCommandKey(1));
+        assertEquals(4, summary.getInvocationCount());
+        assertEquals(2, summary.getInvocationCount(0));
+        assertEquals(2, summary.getInvocationCount(1));
+        assertEquals(1, summary.getCacheHitCount());
+        assertEquals(1, summary.getCacheHitCount(0));
+        assertEquals(1, summary.getFailureCount());
+        assertEquals(1, summary.getFailureCount(1));
+        assertEquals(0, summary.getCollapsedCount());
+        assertEquals(1, summary.getWeight());
+        assertTrue(summary.getExecutionLatencySum(0) >= 20);
+        assertTrue(summary.getExecutionLatencySum(1) >= 20);
+        // commands run one after another, so the critical path covers both of them
+        assertTrue(summary.getCriticalPathLatency() >= 40);
+        assertTrue(summary.getCriticalPathLatency() <= duration);
+    }
+
+    @Test
+    public void testCriticalPathIsUnionOfExecutions() throws Exception {
+        new HystrixRequestSummaryStream(1).observe().subscribe(summary -> summaries.add(summary.copy()));
+        HystrixRequestContext context = HystrixRequestContext.initializeContext();
+        Future<Integer> parallel1 = Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 50).queue();
+        Future<Integer> parallel2 = Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 50).queue();
+        parallel1.get();
+        parallel2.get();
+        // local work of the request, no command is executing
+        Thread.sleep(200);
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 20).execute();
+        context.shutdown();
+
+        HystrixRequestSummary summary = summaries.get(0);
+        assertTrue(summary.getExecutionLatencySum() >= 120);
+        assertTrue("critical path " + summary.getCriticalPathLatency(), summary.getCriticalPathLatency() >= 70);
+        assertTrue("critical path " + summary.getCriticalPathLatency(), summary.getCriticalPathLatency() < 170);
+    }
+
+    @Test
+    public void testUnionLength() {
+        long[] starts = {30, 0, 10, 50, 60};
+        long[] ends = {40, 20, 15, 60, 65};
+        // [0, 20] and [10, 15] overlap, [30, 40] is separate, [50, 60] and [60, 65] touch
+        assertEquals(20 + 10 + 15, HystrixRequestSummary.unionLength(starts, ends, 5));
+        assertEquals(0, HystrixRequestSummary.unionLength(starts, ends, 0));
+    }
+
+    @Test
+    public void testRequestsWithFailuresAreNeverSampledOut() {
+        HystrixRequestSummaryStream stream = new HystrixRequestSummaryStream(0);
+        stream.observe().subscribe(summary -> summaries.add(summary.copy()));
+        for (int i = 0; i < 10; i++) {
+            HystrixRequestContext context = HystrixRequestContext.initializeContext();
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+            if (i % 5 == 0) {
+                Command.from(GROUP_KEY, COMMAND_2, FAILURE, 0).execute();
+            }
+            context.shutdown();
+        }
+
+        assertEquals(2, summaries.size());
+        assertEquals(8, stream.getSampledOutCount());
+        for (HystrixRequestSummary summary : summaries) {
+            assertEquals(1, summary.getFailureCount());
+            assertEquals(1, summary.getWeight());
+        }
+    }
+
+    @Test
+    public void testSampledRequestsAreWeighted() {
+        HystrixRequestSummaryStream stream = new HystrixRequestSummaryStream(0.4);
+        stream.observe().subscribe(summary -> summaries.add(summary.copy()));
+        for (int i = 0; i < 400; i++) {
+            HystrixRequestContext context = HystrixRequestContext.initializeContext();
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+            context.shutdown();
+        }
+
+        assertEquals(400, summaries.size() + stream.getSampledOutCount());
+        assertTrue(summaries.size() > 80 && summaries.size() < 240);
+        long weightSum = 0;
+        for (HystrixRequestSummary summary : summaries) {
+            assertTrue(summary.getWeight() >= 1);
+            weightSum += summary.getWeight();
+        }
+        // only requests sampled out after the last summarized one are not accounted for
+        assertTrue("weights sum to " + weightSum, weightSum <= 400 && weightSum > 370);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixWarmUpTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("WarmUpGroup");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("WarmUpCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("WarmUpCommand2");
+    private final static HystrixCommandKey COMMAND_3 = HystrixCommandKey.Factory.asKey("WarmUpCommand3");
+    private final static HystrixThreadPoolKey THREAD_POOL_1 = HystrixThreadPoolKey.Factory.asKey("WarmUpPool1");
+    private final static HystrixThreadPoolKey THREAD_POOL_2 = HystrixThreadPoolKey.Factory.asKey("WarmUpPool2");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCommandsAreInitializedBeforeExecution() throws Exception {
+        AggregatedHystrixCommandCompletionStream stream = new AggregatedHystrixCommandCompletionStream(notifier, m -> true);
+        List<HystrixCommand.Setter> commands = Arrays.asList(
+                new HystrixCommandDescriptor(GROUP_KEY, COMMAND_1, THREAD_POOL_1).toSetter(),
+                new HystrixCommandDescriptor(GROUP_KEY, COMMAND_2, THREAD_POOL_2).toSetter());
+        assertNull(HystrixCommandMetrics.getInstance(COMMAND_1));
+
+        assertEquals(Integer.valueOf(2), new HystrixWarmUp(executor).warmUp(commands).get(10, TimeUnit.SECONDS));
+        for (HystrixCommandKey key : Arrays.asList(COMMAND_1, COMMAND_2)) {
+            HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(key);
+            assertNotNull(metrics);
+            assertEquals(GROUP_KEY, metrics.getCommandGroup());
+            assertNotNull(HystrixCircuitBreaker.Factory.getInstance(key));
+        }
+        assertNotNull(HystrixThreadPoolMetrics.getInstance(THREAD_POOL_1));
+        assertNotNull(HystrixThreadPoolMetrics.getInstance(THREAD_POOL_2));
+        assertEquals(new HashSet<>(Arrays.asList(COMMAND_1.name(), COMMAND_2.name())), stream.getAttachedNames());
+    }
+
+    @Test
+    public void testRequestContextOfCallerIsKept() throws Exception {
+        HystrixRequestContext context = HystrixRequestContext.getContextForCurrentThread();
+        List<HystrixCommand.Setter> commands = Collections.singletonList(
+                new HystrixCommandDescriptor(GROUP_KEY, COMMAND_1, THREAD_POOL_1).toSetter());
+
+        assertEquals(Integer.valueOf(1), new HystrixWarmUp(Runnable::run).warmUp(commands).get(10, TimeUnit.SECONDS));
+        assertSame(context, HystrixRequestContext.getContextForCurrentThread());
+        assertTrue(HystrixRequestContext.isCurrentThreadInitialized());
+        // the request log of the caller is still usable
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+    }
+
+    @Test
+    public void testSeenCommandsAreSavedAndLoaded() throws Exception {
+        HystrixSeenCommands seenCommands = new HystrixSeenCommands(notifier);
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+        Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 0).execute();
+        Path file = folder.getRoot().toPath().resolve("commands");
+        assertTrue(HystrixSeenCommands.load(file).isEmpty());
+        seenCommands.save(file);
+
+        List<HystrixCommandDescriptor> loaded = HystrixSeenCommands.load(file);
+        assertEquals(seenCommands.getCommands(), new HashSet<>(loaded));
+        HystrixThreadPoolKey threadPool = HystrixThreadPoolKey.Factory.asKey(GROUP_KEY.name());
+        assertTrue(loaded.contains(new HystrixCommandDescriptor(GROUP_KEY, COMMAND_1, threadPool)));
+        assertTrue(loaded.contains(new HystrixCommandDescriptor(GROUP_KEY, COMMAND_2, threadPool)));
+
+        Hystrix.reset();
+        List<HystrixCommand.Setter> commands = loaded.stream().map(HystrixCommandDescriptor::toSetter).collect(Collectors.toList());
+        assertEquals(Integer.valueOf(2), new HystrixWarmUp(executor).warmUp(commands).get(10, TimeUnit.SECONDS));
+        assertNotNull(HystrixCommandMetrics.getInstance(COMMAND_1));
+        assertNotNull(HystrixThreadPoolMetrics.getInstance(threadPool));
+    }
+
+    @Test
+    public void testPropertiesSetInCodeAreKeptAfterWarmUp() throws Exception {
+        HystrixSeenCommands seenCommands = new HystrixSeenCommands(notifier);
+        new ConfiguredCommand().execute();
+        Path file = folder.getRoot().toPath().resolve("commands");
+        seenCommands.save(file);
+
+        Hystrix.reset();
+        List<HystrixCommand.Setter> commands = HystrixSeenCommands.load(file).stream()
+                .map(HystrixCommandDescriptor::toSetter)
+                .collect(Collectors.toList());
+        assertEquals(Integer.valueOf(1), new HystrixWarmUp(executor).warmUp(commands).get(10, TimeUnit.SECONDS));
+
+        ConfiguredCommand command = new ConfiguredCommand();
+        assertEquals(Integer.valueOf(1234), command.getProperties().executionTimeoutInMilliseconds().get());
+        assertEquals(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE, command.getProperties().executionIsolationStrategy().get());
+        assertEquals(Integer.valueOf(3), HystrixThreadPoolMetrics.getInstance(THREAD_POOL_1).getProperties().coreSize().get());
+    }
+
+    private static class ConfiguredCommand extends HystrixCommand<Integer> {
+
+        ConfiguredCommand() {
+            super(Setter.withGroupKey(GROUP_KEY)
+                    .andCommandKey(COMMAND_3)
+                    .andThreadPoolKey(THREAD_POOL_1)
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionTimeoutInMilliseconds(1234)
+                            .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE))
+                    .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter().withCoreSize(3)));
+        }
+
+        @Override
+        protected Integer run() {
+            return 1;
+        }
+    }
+}
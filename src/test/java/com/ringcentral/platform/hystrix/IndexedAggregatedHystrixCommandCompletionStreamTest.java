@@ -0,0 +1,61 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.util.List;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class IndexedAggregatedHystrixCommandCompletionStreamTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY_1 = HystrixCommandGroupKey.Factory.asKey("IndexedGroup1");
+    private final static HystrixCommandGroupKey GROUP_KEY_2 = HystrixCommandGroupKey.Factory.asKey("IndexedGroup2");
+    private final static HystrixCommandKey EARLY_COMMAND = HystrixCommandKey.Factory.asKey("IndexedEarlyCommand");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("IndexedCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("IndexedCommand2");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testCompletionsAreIndexed() {
+        Command.from(GROUP_KEY_1, EARLY_COMMAND, SUCCESS, 0).execute();
+        TestSubscriber<IndexedHystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        new IndexedAggregatedHystrixCommandCompletionStream(notifier, m -> true).observe().subscribe(subscriber);
+        Command.from(GROUP_KEY_1, EARLY_COMMAND, SUCCESS, 0).execute();
+        Command.from(GROUP_KEY_1, COMMAND_1, SUCCESS, 0).execute();
+        Command.from(GROUP_KEY_2, COMMAND_2, FAILURE, 0).execute();
+        Command.from(GROUP_KEY_1, COMMAND_1, FAILURE, 0).execute();
+
+        subscriber.assertValueCount(4);
+        HystrixKeyDictionary<HystrixCommandKey> commandKeys = notifier.getCommandKeyDictionary();
+        HystrixKeyDictionary<HystrixCommandGroupKey> groupKeys = notifier.getCommandGroupKeyDictionary();
+        for (IndexedHystrixCommandCompletion completion : subscriber.getOnNextEvents()) {
+            assertSame(completion.getCompletion().getCommandKey(), commandKeys.getKey(completion.getCommandKeyId()));
+        }
+        List<IndexedHystrixCommandCompletion> events = subscriber.getOnNextEvents();
+        assertEquals(3, commandKeys.size());
+        assertEquals(2, groupKeys.size());
+        assertEquals(events.get(1).getCommandKeyId(), events.get(3).getCommandKeyId());
+        assertNotEquals(events.get(1).getCommandKeyId(), events.get(2).getCommandKeyId());
+        assertSame(GROUP_KEY_1, groupKeys.getKey(events.get(0).getCommandGroupKeyId()));
+        assertSame(GROUP_KEY_2, groupKeys.getKey(events.get(2).getCommandGroupKeyId()));
+    }
+}
@@ -0,0 +1,77 @@
+package com.ringcentral.platform.hystrix;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverValuesWithBoundedError() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upperBound = LatencyHistogram.bucketUpperBound(index);
+            assertTrue("value " + value, upperBound >= value);
+            assertTrue("value " + value, upperBound - value <= value / LatencyHistogram.SUB_BUCKETS);
+            if (index > 0) {
+                assertTrue("value " + value, LatencyHistogram.bucketUpperBound(index - 1) < value);
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketIndex(-1));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(1, 1000, 2, () -> 0);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getTotalCount());
+        assertInRange(500, snapshot.getValueAtPercentile(50));
+        assertInRange(990, snapshot.getValueAtPercentile(99));
+        assertInRange(999, snapshot.getValueAtPercentile(99.9));
+        assertInRange(1000, snapshot.getMax());
+    }
+
+    @Test
+    public void testRollingWindows() {
+        AtomicLong clock = new AtomicLong(0);
+        LatencyHistogram histogram = new LatencyHistogram(3, 100, 1, clock::get);
+        histogram.record(10);
+        clock.set(150);
+        histogram.record(20);
+        assertEquals(2, histogram.snapshot().getTotalCount());
+
+        clock.set(320);
+        histogram.record(30);
+        assertEquals(2, histogram.snapshot().getTotalCount());
+        assertInRange(30, histogram.snapshot().getMax());
+
+        clock.set(1000);
+        assertEquals(0, histogram.snapshot().getTotalCount());
+    }
+
+    @Test
+    public void testMerge() {
+        LatencyHistogram first = new LatencyHistogram(1, 1000, 1, () -> 0);
+        LatencyHistogram second = new LatencyHistogram(1, 1000, 1, () -> 0);
+        first.record(1);
+        second.record(100);
+        second.record(100);
+        LatencyHistogramSnapshot merged = first.snapshot().merge(second.snapshot());
+        assertEquals(3, merged.getTotalCount());
+        assertEquals(1, merged.getValueAtPercentile(10));
+        assertInRange(100, merged.getValueAtPercentile(50));
+        assertEquals(LatencyHistogramSnapshot.EMPTY.merge(merged).getTotalCount(), merged.getTotalCount());
+    }
+
+    private static void assertInRange(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+    }
+}
@@ -0,0 +1,180 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.FALLBACK_SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MergeableHystrixSnapshotTest {
+
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("MergeableCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("MergeableCommand2");
+    private final static HystrixCommandKey COMMAND_3 = HystrixCommandKey.Factory.asKey("MergeableCommand3");
+    private final static HystrixThreadPoolKey THREAD_POOL = HystrixThreadPoolKey.Factory.asKey("Mergeable");
+
+    private final PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Test
+    public void testSnapshotsArePublishedPerInterval() {
+        MergeableHystrixSnapshotStream stream = new MergeableHystrixSnapshotStream(() -> source, 1, TimeUnit.SECONDS, scheduler);
+        TestSubscriber<MergeableHystrixSnapshot> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        emit(COMMAND_1, SUCCESS, 10, 3);
+        emit(COMMAND_2, FAILURE, 100, 1);
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        emit(COMMAND_1, SUCCESS, 10, 1);
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        subscriber.assertValueCount(2);
+        MergeableHystrixSnapshot first = subscriber.getOnNextEvents().get(0);
+        assertEquals(2, first.getCommands().size());
+        assertEquals(3, first.getCommands().get("MergeableCommand1").getCount(SUCCESS));
+        assertEquals(3, first.getCommands().get("MergeableCommand1").getExecutionLatency().getTotalCount());
+        assertEquals(1, first.getCommands().get("MergeableCommand2").getCount(FAILURE));
+        assertEquals(1, first.getCommands().get("MergeableCommand2").getCount(FALLBACK_SUCCESS));
+        MergeableHystrixSnapshot second = subscriber.getOnNextEvents().get(1);
+        assertEquals(1, second.getCommands().size());
+        assertEquals(1, second.getCommands().get("MergeableCommand1").getCount(SUCCESS));
+        assertTrue(second.getIntervalStart() >= first.getIntervalEnd());
+    }
+
+    @Test
+    public void testMergeIsAssociativeAndCommutative() {
+        MergeableHystrixSnapshot a = snapshot(COMMAND_1, SUCCESS, 5, 10);
+        MergeableHystrixSnapshot b = snapshot(COMMAND_2, FAILURE, 700, 2).merge(snapshot(COMMAND_1, SUCCESS, 40, 1));
+        MergeableHystrixSnapshot c = snapshot(COMMAND_3, SUCCESS, 3000, 4);
+
+        assertEquals(a.merge(b), b.merge(a));
+        assertEquals(a.merge(b).merge(c), a.merge(b.merge(c)));
+        assertEquals(a.merge(b).merge(c), c.merge(a).merge(b));
+        assertSame(a, a.merge(MergeableHystrixSnapshot.EMPTY));
+        assertSame(a, MergeableHystrixSnapshot.EMPTY.merge(a));
+
+        MergeableHystrixSnapshot merged = a.merge(b).merge(c);
+        HystrixCommandSnapshot command1 = merged.getCommands().get("MergeableCommand1");
+        assertEquals(11, command1.getCount(SUCCESS));
+        assertEquals(11, command1.getTotalLatency().getTotalCount());
+        assertTrue(command1.getExecutionLatency().getMax() >= 40);
+        assertEquals(Math.min(a.getIntervalStart(), Math.min(b.getIntervalStart(), c.getIntervalStart())), merged.getIntervalStart());
+    }
+
+    @Test
+    public void testEncoding() {
+        MergeableHystrixSnapshot snapshot = snapshot(COMMAND_1, SUCCESS, 5, 1000).merge(snapshot(COMMAND_2, FAILURE, 250, 3));
+        byte[] bytes = snapshot.toBytes();
+
+        assertEquals(snapshot, MergeableHystrixSnapshot.fromBytes(bytes));
+        assertTrue("snapshot is too large: " + bytes.length, bytes.length < 100);
+        assertSame(MergeableHystrixSnapshot.EMPTY, MergeableHystrixSnapshot.fromBytes(MergeableHystrixSnapshot.EMPTY.toBytes()));
+        try {
+            MergeableHystrixSnapshot.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+            fail("truncated snapshot is decoded");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEventTypesAreDecodedByName() {
+        // snapshot of a node with event types unknown here: one written by name and one with a code appended later
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeLong(bytes, 2);
+        writeLong(bytes, 1000);
+        writeLong(bytes, 2000);
+        writeLong(bytes, 4);
+        writeLong(bytes, 0);
+        writeString(bytes, "EVENT_FROM_THE_FUTURE");
+        writeLong(bytes, 0);
+        writeString(bytes, "FAILURE");
+        writeLong(bytes, 2);
+        writeLong(bytes, 1000);
+        writeLong(bytes, 1);
+        writeString(bytes, COMMAND_1.name());
+        // non-zero counts as pairs of index delta and value
+        writeLong(bytes, 4);
+        writeLong(bytes, 1);
+        writeLong(bytes, 7);
+        writeLong(bytes, 1);
+        writeLong(bytes, 2);
+        writeLong(bytes, 1);
+        writeLong(bytes, 5);
+        writeLong(bytes, 1);
+        writeLong(bytes, 9);
+        // empty latency histograms
+        writeLong(bytes, 0);
+        writeLong(bytes, 0);
+
+        HystrixCommandSnapshot command = MergeableHystrixSnapshot.fromBytes(bytes.toByteArray()).getCommands().get(COMMAND_1.name());
+        assertEquals(2, command.getCount(FAILURE));
+        assertEquals(5, command.getCount(SUCCESS));
+        long total = 0;
+        for (HystrixEventType eventType : HystrixEventType.values()) {
+            total += command.getCount(eventType);
+        }
+        assertEquals(7, total);
+    }
+
+    @Test
+    public void testCollector() {
+        MergeableHystrixSnapshotCollector collector = new MergeableHystrixSnapshotCollector();
+        for (int node = 0; node < 100; node++) {
+            collector.accept(snapshot(COMMAND_1, SUCCESS, node, 2).toBytes());
+        }
+
+        MergeableHystrixSnapshot merged = collector.drain();
+        assertEquals(200, merged.getCommands().get("MergeableCommand1").getCount(SUCCESS));
+        assertEquals(200, merged.getCommands().get("MergeableCommand1").getExecutionLatency().getTotalCount());
+        assertSame(MergeableHystrixSnapshot.EMPTY, collector.getSnapshot());
+    }
+
+    private MergeableHystrixSnapshot snapshot(HystrixCommandKey key, HystrixEventType eventType, int latency, int count) {
+        MergeableHystrixSnapshotStream stream = new MergeableHystrixSnapshotStream(() -> source, 1, TimeUnit.SECONDS, scheduler);
+        TestSubscriber<MergeableHystrixSnapshot> subscriber = new TestSubscriber<>();
+        stream.observe().take(1).subscribe(subscriber);
+        emit(key, eventType, latency, count);
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        return subscriber.getOnNextEvents().get(0);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(out, utf8.length);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private void emit(HystrixCommandKey key, HystrixEventType eventType, int latency, int count) {
+        ExecutionResult result = eventType == SUCCESS ? ExecutionResult.from(SUCCESS) : ExecutionResult.from(eventType, FALLBACK_SUCCESS);
+        result = result.setExecutionLatency(latency).setInvocationStartTime(System.currentTimeMillis() - latency)
+                .markUserThreadCompletion(latency);
+        for (int i = 0; i < count; i++) {
+            source.onNext(HystrixCommandCompletion.from(result, key, THREAD_POOL));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+
+public class PartitionedHystrixCommandCompletionStreamTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("PartitionedGroup");
+    private final static HystrixCommandKey[] COMMANDS = new HystrixCommandKey[6];
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+    private final TestScheduler scheduler = new TestScheduler();
+
+    static {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            COMMANDS[i] = HystrixCommandKey.Factory.asKey("PartitionedCommand" + i);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testCompletionsOfCommandAreDeliveredInOrderByOnePartition() {
+        PartitionedHystrixCommandCompletionStream stream = new PartitionedHystrixCommandCompletionStream(
+                new AggregatedHystrixCommandCompletionStream(notifier, m -> true), 3, 64, OverflowStrategy.DROP_NEWEST, scheduler);
+        List<TestSubscriber<HystrixCommandCompletion>> subscribers = new ArrayList<>();
+        for (int i = 0; i < stream.getPartitionCount(); i++) {
+            TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+            stream.observe(i).subscribe(subscriber);
+            subscribers.add(subscriber);
+        }
+        List<List<HystrixEventType>> expected = new ArrayList<>();
+        for (HystrixCommandKey ignored : COMMANDS) {
+            expected.add(new ArrayList<>());
+        }
+        for (int i = 0; i < 4; i++) {
+            for (int c = 0; c < COMMANDS.length; c++) {
+                HystrixEventType type = (i + c) % 2 == 0 ? SUCCESS : FAILURE;
+                Command.from(GROUP_KEY, COMMANDS[c], type, 0).execute();
+                expected.get(c).add(type);
+            }
+        }
+        scheduler.triggerActions();
+
+        int total = 0;
+        for (int c = 0; c < COMMANDS.length; c++) {
+            int partition = stream.partitionOf(COMMANDS[c]);
+            List<HystrixEventType> delivered = new ArrayList<>();
+            for (HystrixCommandCompletion completion : subscribers.get(partition).getOnNextEvents()) {
+                if (completion.getCommandKey() == COMMANDS[c]) {
+                    delivered.add(completion.getEventCounts().contains(SUCCESS) ? SUCCESS : FAILURE);
+                }
+            }
+            assertEquals(expected.get(c), delivered);
+        }
+        for (int i = 0; i < stream.getPartitionCount(); i++) {
+            for (HystrixCommandCompletion completion : subscribers.get(i).getOnNextEvents()) {
+                assertEquals(i, stream.partitionOf(completion.getCommandKey()));
+            }
+            assertEquals(subscribers.get(i).getOnNextEvents().size(), stream.getDeliveredCount(i));
+            total += subscribers.get(i).getOnNextEvents().size();
+        }
+        assertEquals(4 * COMMANDS.length, total);
+        assertEquals(0, stream.getDroppedCount());
+        stream.close();
+    }
+
+    @Test
+    public void testOverflowIsCounted() {
+        PartitionedHystrixCommandCompletionStream stream = new PartitionedHystrixCommandCompletionStream(
+                new AggregatedHystrixCommandCompletionStream(notifier, m -> true), 1, 2, OverflowStrategy.DROP_NEWEST, scheduler);
+        TestSubscriber<HystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe(0).subscribe(subscriber);
+        for (int i = 0; i < 5; i++) {
+            Command.from(GROUP_KEY, COMMANDS[0], SUCCESS, 0).execute();
+        }
+
+        assertEquals(2, stream.getQueueCapacity());
+        assertEquals(2, stream.getQueueDepth(0));
+        assertEquals(3, stream.getDroppedCount(0));
+        scheduler.triggerActions();
+        subscriber.assertValueCount(2);
+        assertEquals(0, stream.getQueueDepth(0));
+        assertEquals(2, stream.getDeliveredCount(0));
+        stream.close();
+    }
+
+    @Test
+    public void testSourceIsNotRoutedWithoutSubscribers() {
+        PartitionedHystrixCommandCompletionStream stream = new PartitionedHystrixCommandCompletionStream(
+                new AggregatedHystrixCommandCompletionStream(notifier, m -> true), 2, 8, OverflowStrategy.DROP_NEWEST, scheduler);
+        Subscription subscription1 = stream.observe(0).subscribe();
+        Subscription subscription2 = stream.observe(1).subscribe();
+        Command.from(GROUP_KEY, COMMANDS[0], SUCCESS, 0).execute();
+        subscription1.unsubscribe();
+        Command.from(GROUP_KEY, COMMANDS[0], SUCCESS, 0).execute();
+        subscription2.unsubscribe();
+        Command.from(GROUP_KEY, COMMANDS[0], SUCCESS, 0).execute();
+        scheduler.triggerActions();
+
+        int partition = stream.partitionOf(COMMANDS[0]);
+        assertEquals(2, stream.getDeliveredCount(partition));
+        assertEquals(0, stream.getDeliveredCount(1 - partition));
+        stream.close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.FALLBACK_SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RollingHystrixCommandAggregateStreamTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Util");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("RollingCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("RollingCommand2");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testAggregatesArePublishedPerInterval() {
+        TestScheduler scheduler = new TestScheduler();
+        AggregatedHystrixCommandCompletionStream completions = new AggregatedHystrixCommandCompletionStream(notifier, m -> true);
+        RollingHystrixCommandAggregateStream stream = new RollingHystrixCommandAggregateStream(completions, 1, TimeUnit.SECONDS, scheduler);
+        TestSubscriber<Map<HystrixCommandKey, HystrixCommandAggregate>> first = new TestSubscriber<>();
+        TestSubscriber<Map<HystrixCommandKey, HystrixCommandAggregate>> second = new TestSubscriber<>();
+        stream.observe().subscribe(first);
+        stream.observe().subscribe(second);
+
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 10).execute();
+        Command.from(GROUP_KEY, COMMAND_1, FAILURE, 20).execute();
+        Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 30).execute();
+        Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 10).execute();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        HystrixCommandAggregate command1 = first.getOnNextEvents().get(0).get(COMMAND_1);
+        assertEquals(3, command1.getCompletionCount());
+        assertEquals(2, command1.getCount(SUCCESS));
+        assertEquals(1, command1.getCount(FAILURE));
+        assertEquals(1, command1.getCount(FALLBACK_SUCCESS));
+        assertTrue(command1.getExecutionLatencyMax() >= 30);
+        assertTrue(command1.getTotalLatencyMax() >= command1.getExecutionLatencyMax());
+        assertEquals(1, first.getOnNextEvents().get(0).get(COMMAND_2).getCompletionCount());
+        assertTrue(first.getOnNextEvents().get(0) == second.getOnNextEvents().get(0));
+
+        Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 10).execute();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        first.assertValueCount(2);
+        assertEquals(0, first.getOnNextEvents().get(1).get(COMMAND_1).getCompletionCount());
+        assertEquals(0, first.getOnNextEvents().get(1).get(COMMAND_1).getExecutionLatencyMax());
+        assertEquals(1, first.getOnNextEvents().get(1).get(COMMAND_2).getCompletionCount());
+        first.assertNoErrors();
+    }
+}
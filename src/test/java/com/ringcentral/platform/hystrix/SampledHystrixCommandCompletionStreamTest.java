@@ -0,0 +1,105 @@
+package com.ringcentral.platform.hystrix;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.FALLBACK_SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.TIMEOUT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SampledHystrixCommandCompletionStreamTest {
+
+    private final static HystrixCommandKey COMMAND = HystrixCommandKey.Factory.asKey("SampledCommand");
+    private final static HystrixThreadPoolKey THREAD_POOL = HystrixThreadPoolKey.Factory.asKey("Sampled");
+    private final static HystrixCommandCompletion SUCCESS_COMPLETION =
+            HystrixCommandCompletion.from(ExecutionResult.from(SUCCESS), COMMAND, THREAD_POOL);
+    private final static HystrixCommandCompletion FAILURE_COMPLETION =
+            HystrixCommandCompletion.from(ExecutionResult.from(FAILURE, FALLBACK_SUCCESS), COMMAND, THREAD_POOL);
+    private final static HystrixCommandCompletion TIMEOUT_COMPLETION =
+            HystrixCommandCompletion.from(ExecutionResult.from(TIMEOUT, FALLBACK_SUCCESS), COMMAND, THREAD_POOL);
+
+    private final PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Test
+    public void testAllEventsArePassedAtLowRate() {
+        SampledHystrixCommandCompletionStream stream = new SampledHystrixCommandCompletionStream(() -> source, 100, scheduler);
+        TestSubscriber<WeightedHystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        for (int i = 0; i < 50; i++) {
+            source.onNext(SUCCESS_COMPLETION);
+            source.onNext(FAILURE_COMPLETION);
+        }
+
+        subscriber.assertValueCount(100);
+        subscriber.getOnNextEvents().forEach(event -> assertEquals(1, event.getWeight()));
+        assertEquals(0, stream.getSampledOutCount());
+    }
+
+    @Test
+    public void testSuccessesAreSampledAtHighRate() {
+        SampledHystrixCommandCompletionStream stream = new SampledHystrixCommandCompletionStream(() -> source, 100, scheduler);
+        TestSubscriber<WeightedHystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        for (int second = 0; second < 3; second++) {
+            for (int i = 0; i < 10_000; i++) {
+                source.onNext(SUCCESS_COMPLETION);
+                if (i % 1000 == 0) {
+                    source.onNext(FAILURE_COMPLETION);
+                    source.onNext(TIMEOUT_COMPLETION);
+                }
+            }
+            scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        }
+
+        long failures = 0;
+        long successes = 0;
+        long passedSuccesses = 0;
+        for (WeightedHystrixCommandCompletion event : subscriber.getOnNextEvents()) {
+            if (event.getCompletion().getEventCounts().contains(SUCCESS)) {
+                successes += event.getWeight();
+                passedSuccesses++;
+            } else {
+                assertEquals(1, event.getWeight());
+                failures++;
+            }
+        }
+        assertEquals(60, failures);
+        assertEquals(30_000, passedSuccesses + stream.getSampledOutCount());
+        assertTrue("too many successes passed: " + passedSuccesses, passedSuccesses < 1500);
+        // weights of successes skipped after the last passed one are not emitted yet
+        assertTrue(successes <= 30_000 && successes > 29_000);
+    }
+
+    @Test
+    public void testRateIsAdaptedInNextSecond() {
+        SampledHystrixCommandCompletionStream stream = new SampledHystrixCommandCompletionStream(() -> source, 100, scheduler);
+        TestSubscriber<WeightedHystrixCommandCompletion> subscriber = new TestSubscriber<>();
+        stream.observe().subscribe(subscriber);
+        for (int i = 0; i < 10_000; i++) {
+            source.onNext(SUCCESS_COMPLETION);
+        }
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        int firstSecond = subscriber.getOnNextEvents().size();
+        for (int i = 0; i < 10_000; i++) {
+            source.onNext(SUCCESS_COMPLETION);
+        }
+
+        int secondSecond = subscriber.getOnNextEvents().size() - firstSecond;
+        assertEquals(100, secondSecond);
+        for (WeightedHystrixCommandCompletion event : subscriber.getOnNextEvents().subList(firstSecond, firstSecond + secondSecond)) {
+            assertEquals(100, event.getWeight());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ringcentral.platform.hystrix.journal;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.subjects.PublishSubject;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.FALLBACK_SUCCESS;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixCompletionJournalTest {
+
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("JournalCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("JournalCommand2");
+    private final static HystrixThreadPoolKey THREAD_POOL = HystrixThreadPoolKey.Factory.asKey("Journal");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+
+    @Test
+    public void testRecordsAreReadBack() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("completions.journal");
+        try (HystrixCompletionJournal journal = new HystrixCompletionJournal(() -> source, file, 16)) {
+            source.onNext(completion(COMMAND_1, ExecutionResult.from(SUCCESS).setExecutionLatency(5)));
+            source.onNext(completion(COMMAND_2, ExecutionResult.from(FAILURE, FALLBACK_SUCCESS).setExecutionLatency(7)));
+            assertEquals(2, journal.getSequence());
+        }
+
+        List<JournalRecord> records = HystrixCompletionJournalReader.read(file);
+        assertEquals(2, records.size());
+        assertEquals(1, records.get(0).getSequence());
+        assertEquals("JournalCommand1", records.get(0).getCommandName());
+        assertEquals(EnumSet.of(SUCCESS), records.get(0).getEventTypes());
+        assertEquals(5, records.get(0).getExecutionLatency());
+        assertEquals("JournalCommand2", records.get(1).getCommandName());
+        assertEquals(EnumSet.of(FAILURE, FALLBACK_SUCCESS), records.get(1).getEventTypes());
+        assertEquals(7, records.get(1).getExecutionLatency());
+        assertTrue(records.get(1).getTimestamp() > 0);
+    }
+
+    @Test
+    public void testOnlyLastRecordsAreKept() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("bounded.journal");
+        try (HystrixCompletionJournal journal = new HystrixCompletionJournal(() -> source, file, 4)) {
+            for (int i = 1; i <= 10; i++) {
+                source.onNext(completion(COMMAND_1, ExecutionResult.from(SUCCESS).setExecutionLatency(i)));
+            }
+            assertEquals(10, journal.getSequence());
+        }
+
+        assertEquals(JournalFormat.fileSize(4), file.toFile().length());
+        List<JournalRecord> records = HystrixCompletionJournalReader.read(file);
+        assertEquals(4, records.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(7 + i, records.get(i).getSequence());
+            assertEquals(7 + i, records.get(i).getExecutionLatency());
+        }
+    }
+
+    @Test
+    public void testJournalIsContinuedAfterRestart() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("restart.journal");
+        try (HystrixCompletionJournal journal = new HystrixCompletionJournal(() -> source, file, 8)) {
+            source.onNext(completion(COMMAND_1, ExecutionResult.from(SUCCESS)));
+            source.onNext(completion(COMMAND_2, ExecutionResult.from(SUCCESS)));
+            assertEquals(2, journal.getSequence());
+        }
+        try (HystrixCompletionJournal journal = new HystrixCompletionJournal(() -> source, file, 8)) {
+            assertEquals(2, journal.getSequence());
+            source.onNext(completion(COMMAND_2, ExecutionResult.from(FAILURE)));
+        }
+
+        List<JournalRecord> records = HystrixCompletionJournalReader.read(file);
+        assertEquals(3, records.size());
+        assertEquals(3, records.get(2).getSequence());
+        assertEquals("JournalCommand2", records.get(2).getCommandName());
+    }
+
+    @Test
+    public void testTornRecordIsSkipped() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("torn.journal");
+        try (HystrixCompletionJournal journal = new HystrixCompletionJournal(() -> source, file, 8)) {
+            source.onNext(completion(COMMAND_1, ExecutionResult.from(SUCCESS)));
+            source.onNext(completion(COMMAND_1, ExecutionResult.from(SUCCESS)));
+            assertEquals(2, journal.getSequence());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(JournalFormat.recordOffset(8, 2) + JournalFormat.RECORD_SEQUENCE_END_OFFSET);
+            raf.writeLong(0);
+        }
+
+        List<JournalRecord> records = HystrixCompletionJournalReader.read(file);
+        assertEquals(1, records.size());
+        assertEquals(1, records.get(0).getSequence());
+    }
+
+    private static HystrixCommandCompletion completion(HystrixCommandKey key, ExecutionResult result) {
+        return HystrixCommandCompletion.from(result, key, THREAD_POOL);
+    }
+}
@@ -0,0 +1,207 @@
+package com.ringcentral.platform.hystrix.prometheus;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.ringcentral.platform.hystrix.AggregatedHystrixCommandCompletionStream;
+import com.ringcentral.platform.hystrix.Command;
+import com.ringcentral.platform.hystrix.HystrixConcurrencyAdvisor;
+import com.ringcentral.platform.hystrix.HystrixMetricsInitializationNotifier;
+import com.ringcentral.platform.hystrix.OverflowStrategy;
+import com.ringcentral.platform.hystrix.PartitionedHystrixCommandCompletionStream;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.netflix.hystrix.HystrixEventType.FAILURE;
+import static com.netflix.hystrix.HystrixEventType.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixOpenMetricsCollectorTest {
+
+    private final static HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("Prometheus");
+    private final static HystrixCommandKey COMMAND_1 = HystrixCommandKey.Factory.asKey("OpenMetricsCommand1");
+    private final static HystrixCommandKey COMMAND_2 = HystrixCommandKey.Factory.asKey("OpenMetricsCommand2");
+    private HystrixMetricsInitializationNotifier notifier = new HystrixMetricsInitializationNotifier();
+
+    @Before
+    public void setUp() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixRequestContext.initializeContext();
+        HystrixPlugins.getInstance().registerMetricsPublisher(notifier);
+    }
+
+    @Test
+    public void testMetricsAreRendered() {
+        try (HystrixOpenMetricsCollector collector = new HystrixOpenMetricsCollector(
+                new AggregatedHystrixCommandCompletionStream(notifier, m -> true))) {
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 10).execute();
+            Command.from(GROUP_KEY, COMMAND_1, FAILURE, 10).execute();
+            Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 30).execute();
+
+            String metrics = collector.scrape();
+            assertTrue(metrics.startsWith("# TYPE hystrix_command_events counter\n"));
+            assertTrue(metrics.endsWith("# EOF\n"));
+            String labels = "command=\"OpenMetricsCommand1\",group=\"Prometheus\"";
+            assertTrue(metrics.contains("hystrix_command_events_total{" + labels + ",event=\"success\"} 1\n"));
+            assertTrue(metrics.contains("hystrix_command_events_total{" + labels + ",event=\"failure\"} 1\n"));
+            assertTrue(metrics.contains("hystrix_command_events_total{" + labels + ",event=\"fallback_success\"} 1\n"));
+            assertFalse(metrics.contains("event=\"timeout\""));
+            assertTrue(metrics.contains("# UNIT hystrix_command_execution_latency_milliseconds milliseconds\n"));
+            assertTrue(metrics.contains("hystrix_command_execution_latency_milliseconds_bucket{" + labels + ",le=\"+Inf\"} 2\n"));
+            assertTrue(metrics.contains("hystrix_command_execution_latency_milliseconds_count{" + labels + "} 2\n"));
+            assertTrue(metrics.contains("hystrix_command_total_latency_milliseconds_count{" + labels + "} 2\n"));
+            assertTrue(metrics.contains("hystrix_command_execution_latency_milliseconds_bucket{"
+                    + "command=\"OpenMetricsCommand2\",group=\"Prometheus\",le=\"25.0\"} 0\n"));
+
+            Command.from(GROUP_KEY, COMMAND_2, SUCCESS, 0).execute();
+            assertTrue(collector.scrape().contains("hystrix_command_execution_latency_milliseconds_count{"
+                    + "command=\"OpenMetricsCommand2\",group=\"Prometheus\"} 2\n"));
+        }
+    }
+
+    @Test
+    public void testSlowScrapeDoesNotBlockNewCommands() throws Exception {
+        PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch scrapeStarted = new CountDownLatch(1);
+        CountDownLatch scrapeReleased = new CountDownLatch(1);
+        try (HystrixOpenMetricsCollector collector = new HystrixOpenMetricsCollector(() -> source)) {
+            Future<?> scrape = executor.submit(() -> {
+                collector.writeTo(size -> {
+                    scrapeStarted.countDown();
+                    try {
+                        scrapeReleased.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                    return new ByteArrayOutputStream();
+                });
+                return null;
+            });
+            assertTrue(scrapeStarted.await(10, TimeUnit.SECONDS));
+            // the first completion of a command registers it while the scrape is still being written
+            Future<?> record = executor.submit(() -> source.onNext(HystrixCommandCompletion.from(
+                    ExecutionResult.from(SUCCESS), COMMAND_1, HystrixThreadPoolKey.Factory.asKey(GROUP_KEY.name()))));
+            record.get(10, TimeUnit.SECONDS);
+            scrapeReleased.countDown();
+            scrape.get(10, TimeUnit.SECONDS);
+            assertTrue(collector.scrape().contains("command=\"OpenMetricsCommand1\""));
+        } finally {
+            scrapeReleased.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrencyRecommendationsAreRendered() {
+        PublishSubject<HystrixCommandCompletion> source = PublishSubject.create();
+        TestScheduler scheduler = new TestScheduler();
+        HystrixThreadPoolKey threadPool = HystrixThreadPoolKey.Factory.asKey(GROUP_KEY.name());
+        try (HystrixConcurrencyAdvisor advisor = new HystrixConcurrencyAdvisor(notifier, () -> source, 1, TimeUnit.SECONDS, scheduler);
+             HystrixOpenMetricsCollector collector = new HystrixOpenMetricsCollector(() -> source)) {
+            collector.setConcurrencyAdvisor(advisor);
+            // creates the thread pool, so the advisor is notified about it
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+            ExecutionResult result = ExecutionResult.from(SUCCESS).setExecutedInThread().setExecutionLatency(20);
+            for (int i = 0; i < 100; i++) {
+                source.onNext(HystrixCommandCompletion.from(result, COMMAND_1, threadPool));
+            }
+            scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+            String metrics = collector.scrape();
+            int recommended = advisor.getRecommendation(COMMAND_1).getRecommendedConcurrency();
+            assertTrue(metrics.contains("# TYPE hystrix_command_concurrency_recommended gauge\n"));
+            assertTrue(metrics.contains("hystrix_command_concurrency_recommended{command=\"OpenMetricsCommand1\"} " + recommended + "\n"));
+            assertTrue(metrics.contains("hystrix_command_concurrency_average{command=\"OpenMetricsCommand1\"} 2.000\n"));
+            // commands isolated by threads are limited by their thread pool
+            assertFalse(metrics.contains("hystrix_command_concurrency_limit{command="));
+            assertTrue(metrics.contains("hystrix_thread_pool_concurrency_recommended{thread_pool=\"Prometheus\"} " + recommended + "\n"));
+            assertTrue(metrics.contains("hystrix_thread_pool_concurrency_average{thread_pool=\"Prometheus\"} 2.000\n"));
+            assertTrue(metrics.contains("hystrix_thread_pool_concurrency_limit{thread_pool=\"Prometheus\"} 10\n"));
+            assertTrue(metrics.endsWith("# EOF\n"));
+        }
+    }
+
+    @Test
+    public void testPartitionsAreRendered() {
+        TestScheduler scheduler = new TestScheduler();
+        AggregatedHystrixCommandCompletionStream stream = new AggregatedHystrixCommandCompletionStream(notifier, m -> true);
+        try (PartitionedHystrixCommandCompletionStream partitioned =
+                     new PartitionedHystrixCommandCompletionStream(stream, 2, 2, OverflowStrategy.DROP_NEWEST, scheduler);
+             HystrixOpenMetricsCollector collector = new HystrixOpenMetricsCollector(stream)) {
+            collector.setPartitionedStream(partitioned);
+            partitioned.observePartitions().forEach(partition -> partition.subscribe());
+            // lanes are not drained until the scheduler is advanced, so the lane of the command overflows
+            for (int i = 0; i < 5; i++) {
+                Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+            }
+            int partition = partitioned.partitionOf(COMMAND_1);
+
+            String metrics = collector.scrape();
+            assertTrue(metrics.contains("# TYPE hystrix_completion_partitions gauge\n"));
+            assertTrue(metrics.contains("\nhystrix_completion_partitions 2\n"));
+            assertTrue(metrics.contains("hystrix_completion_partition_queue_depth{partition=\"" + partition + "\"} 2\n"));
+            assertTrue(metrics.contains("hystrix_completion_partition_queue_depth{partition=\"" + (1 - partition) + "\"} 0\n"));
+            assertTrue(metrics.contains("# TYPE hystrix_completion_partition_dropped counter\n"));
+            assertTrue(metrics.contains("hystrix_completion_partition_dropped_total{partition=\"" + partition + "\"} 3\n"));
+            assertTrue(metrics.endsWith("# EOF\n"));
+
+            scheduler.triggerActions();
+            assertTrue(collector.scrape().contains("hystrix_completion_partition_queue_depth{partition=\"" + partition + "\"} 0\n"));
+        }
+    }
+
+    @Test
+    public void testLabelValuesAreEscaped() {
+        assertEquals("a\\\\b\\\"c\\nd", HystrixOpenMetricsCollector.escape("a\\b\"c\nd"));
+    }
+
+    @Test
+    public void testMetricsAreServedOverHttp() throws Exception {
+        try (HystrixOpenMetricsCollector collector = new HystrixOpenMetricsCollector(
+                new AggregatedHystrixCommandCompletionStream(notifier, m -> true));
+             HystrixOpenMetricsHttpServer server = new HystrixOpenMetricsHttpServer(collector,
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            Command.from(GROUP_KEY, COMMAND_1, SUCCESS, 0).execute();
+
+            URL url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/metrics");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(HystrixOpenMetricsCollector.CONTENT_TYPE, connection.getContentType());
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                byte[] chunk = new byte[4096];
+                for (int n; (n = in.read(chunk)) > 0; ) {
+                    body.write(chunk, 0, n);
+                }
+            }
+            String metrics = new String(body.toByteArray(), StandardCharsets.UTF_8);
+            assertTrue(metrics.contains("event=\"success\"} 1\n"));
+            assertTrue(metrics.endsWith("# EOF\n"));
+        }
+    }
+}